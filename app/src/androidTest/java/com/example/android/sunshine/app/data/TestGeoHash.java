@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.test.AndroidTestCase;
+
+import com.example.android.sunshine.app.data.WeatherContract.LocationEntry;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class TestGeoHash extends AndroidTestCase {
+
+    public void testEncode() {
+        // The reference example from the original geohash description
+        assertEquals("Error: Geohash doesn't match the reference value",
+                "u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("Error: A shorter geohash should be a prefix of a longer one",
+                "u4pru", GeoHash.encode(57.64911, 10.40744, 5));
+    }
+
+    public void testNeighboursCoverRadius() {
+        double lat = 37.4220;
+        double lon = -122.0841;
+        int precision = GeoHash.precisionForRadius(500, lat);
+        List<String> cells = Arrays.asList(GeoHash.cellAndNeighbours(lat, lon, precision));
+
+        // A point 400m to the north east must fall into one of the searched cells
+        String nearby = GeoHash.encode(lat + 0.0026, lon + 0.0032, precision);
+        assertTrue("Error: Nearby point " + nearby + " is not in " + cells,
+                cells.contains(nearby));
+    }
+
+    public void testDistance() {
+        // One hundredth of a degree of latitude is a little over a kilometer
+        double distance = GeoHash.distanceMeters(37.40, -122.08, 37.41, -122.08);
+        assertTrue("Error: Unexpected distance " + distance, distance > 1100 && distance < 1125);
+    }
+
+    public void testProviderMaintainsGeoHash() {
+        mContext.getContentResolver().delete(WeatherContract.WeatherEntry.CONTENT_URI, null, null);
+        mContext.getContentResolver().delete(LocationEntry.CONTENT_URI, null, null);
+
+        ContentValues testValues = TestUtilities.createNorthPoleLocationValues();
+        mContext.getContentResolver().insert(LocationEntry.CONTENT_URI, testValues);
+
+        Cursor cursor = mContext.getContentResolver().query(LocationEntry.CONTENT_URI,
+                new String[]{LocationEntry.COLUMN_GEOHASH}, null, null, null);
+        assertTrue("Error: No location returned", cursor.moveToFirst());
+        assertEquals("Error: Provider didn't store the geohash of the location",
+                GeoHash.encode(64.7488, -147.353, GeoHash.MAX_PRECISION), cursor.getString(0));
+        cursor.close();
+
+        mContext.getContentResolver().delete(LocationEntry.CONTENT_URI, null, null);
+    }
+}
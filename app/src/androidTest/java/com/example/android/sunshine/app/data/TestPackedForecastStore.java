@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+import android.text.format.DateUtils;
+
+import com.example.android.sunshine.app.data.WeatherContract.LocationEntry;
+import com.example.android.sunshine.app.data.WeatherContract.WeatherEntry;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestPackedForecastStore extends AndroidTestCase {
+
+    private static final int DAYS = 14;
+    private static final int LOCATIONS = 50;
+
+    private File mDirectory;
+    private PackedForecastStore mStore;
+
+    public void setUp() {
+        mDirectory = new File(mContext.getCacheDir(), "test_forecasts");
+        deleteDirectory();
+        mStore = new PackedForecastStore(mDirectory);
+    }
+
+    public void tearDown() {
+        deleteDirectory();
+    }
+
+    private void deleteDirectory() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDirectory.delete();
+    }
+
+    private static List<ContentValues> createForecast(long locationId) {
+        List<ContentValues> forecast = new ArrayList<ContentValues>(DAYS);
+        long startDate = WeatherContract.normalizeDate(System.currentTimeMillis());
+        for (int i = 0; i < DAYS; i++) {
+            ContentValues values = TestUtilities.createWeatherValues(locationId);
+            values.put(WeatherEntry.COLUMN_DATE,
+                    WeatherContract.normalizeDate(startDate + i * DateUtils.DAY_IN_MILLIS));
+            values.put(WeatherEntry.COLUMN_SHORT_DESC, "Clear");
+            values.put(WeatherEntry.COLUMN_WEATHER_ID, 800);
+            values.put(WeatherEntry.COLUMN_MAX_TEMP, 20 + i);
+            forecast.add(values);
+        }
+        return forecast;
+    }
+
+    private static List<PackedForecastStore.Record> toRecords(List<ContentValues> forecast) {
+        List<PackedForecastStore.Record> records =
+                new ArrayList<PackedForecastStore.Record>(forecast.size());
+        for (ContentValues values : forecast) {
+            records.add(PackedForecastStore.Record.fromValues(values));
+        }
+        return records;
+    }
+
+    public void testRoundTrip() {
+        List<ContentValues> forecast = createForecast(1);
+        mStore.put(1, toRecords(forecast));
+
+        PackedForecastStore.Record[] records = mStore.read(1);
+        assertEquals("Error: Wrong number of records read back", DAYS, records.length);
+        for (int i = 0; i < DAYS; i++) {
+            ContentValues expected = forecast.get(i);
+            assertEquals(expected.getAsLong(WeatherEntry.COLUMN_DATE).longValue(),
+                    records[i].date);
+            assertEquals(expected.getAsFloat(WeatherEntry.COLUMN_MAX_TEMP), records[i].maxTemp,
+                    0f);
+            assertEquals("Clear", records[i].getDescription());
+        }
+
+        // Writing the same dates again replaces them rather than adding to them
+        mStore.put(1, toRecords(forecast));
+        assertEquals("Error: Records with the same date weren't replaced",
+                DAYS, mStore.read(1).length);
+    }
+
+    public void testUnknownDescription() {
+        // Descriptions outside the condition groups are derived from the weather id
+        ContentValues values = TestUtilities.createWeatherValues(1);
+        List<PackedForecastStore.Record> records = new ArrayList<PackedForecastStore.Record>();
+        records.add(PackedForecastStore.Record.fromValues(values));
+        mStore.put(1, records);
+        assertEquals("Drizzle", mStore.read(1)[0].getDescription());
+    }
+
+    public void testSelection() {
+        List<ContentValues> forecast = createForecast(1);
+        mStore.put(1, toRecords(forecast));
+        mStore.put(2, toRecords(createForecast(2)));
+
+        long thirdDay = forecast.get(2).getAsLong(WeatherEntry.COLUMN_DATE);
+        Cursor cursor = mStore.query(null, WeatherEntry.COLUMN_LOC_KEY + " = ? AND "
+                        + WeatherEntry.COLUMN_DATE + " >= ?",
+                new String[]{"1", Long.toString(thirdDay)}, null);
+        assertEquals("Error: Selection matched the wrong records", DAYS - 2, cursor.getCount());
+        cursor.close();
+
+        int deleted = mStore.delete(WeatherEntry.COLUMN_DATE + " < ?",
+                new String[]{Long.toString(thirdDay)});
+        assertEquals("Error: Delete removed the wrong records", 4, deleted);
+
+        try {
+            mStore.query(null, WeatherEntry.COLUMN_SHORT_DESC + " = ?", new String[]{"Clear"},
+                    null);
+            fail("Error: Selection on an unsupported column should throw");
+        } catch (SQLException e) {
+            // expected
+        }
+    }
+
+    public void testMissingColumn() {
+        ContentValues values = TestUtilities.createWeatherValues(1);
+        values.remove(WeatherEntry.COLUMN_MIN_TEMP);
+        try {
+            PackedForecastStore.Record.fromValues(values);
+            fail("Error: A record without a required column should be rejected");
+        } catch (SQLException e) {
+            // expected, as SQLite's NOT NULL constraint would
+        }
+    }
+
+    public void testUpdateMovesRecords() {
+        List<ContentValues> forecast = createForecast(1);
+        mStore.put(1, toRecords(forecast));
+        mStore.put(2, toRecords(createForecast(2)).subList(0, 1));
+
+        // The first day moves to location 2, replacing the record it already has for that day
+        long firstDay = forecast.get(0).getAsLong(WeatherEntry.COLUMN_DATE);
+        ContentValues values = new ContentValues();
+        values.put(WeatherEntry.COLUMN_LOC_KEY, 2);
+        values.put(WeatherEntry.COLUMN_MAX_TEMP, 99);
+        int updated = mStore.update(values, WeatherEntry.COLUMN_LOC_KEY + " = ? AND "
+                + WeatherEntry.COLUMN_DATE + " = ?",
+                new String[]{"1", Long.toString(firstDay)});
+        assertEquals("Error: Update changed the wrong number of records", 1, updated);
+        assertEquals(DAYS - 1, mStore.read(1).length);
+        PackedForecastStore.Record[] moved = mStore.read(2);
+        assertEquals("Error: The moved record didn't replace the one for its day",
+                1, moved.length);
+        assertEquals(99f, moved[0].maxTemp, 0f);
+    }
+
+    /*
+        The store exists to take less space than SQLite, so check it does for the same
+        forecasts.  How the two compare for speed, through the provider, is measured by
+        ProviderBenchmark in the benchmark module.
+     */
+    public void testSmallerThanSqlite() {
+        mContext.deleteDatabase(WeatherDbHelper.DATABASE_NAME);
+        SQLiteDatabase db = new WeatherDbHelper(mContext).getWritableDatabase();
+
+        for (int i = 0; i < LOCATIONS; i++) {
+            ContentValues location = TestUtilities.createNorthPoleLocationValues();
+            location.put(LocationEntry.COLUMN_LOCATION_SETTING, "location" + i);
+            long locationId = db.insert(LocationEntry.TABLE_NAME, null, location);
+            List<ContentValues> forecast = createForecast(locationId);
+            db.beginTransaction();
+            try {
+                for (ContentValues values : forecast) {
+                    db.insert(WeatherEntry.TABLE_NAME, null, values);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            mStore.put(locationId, toRecords(forecast));
+        }
+        db.close();
+
+        long sqliteSize = mContext.getDatabasePath(WeatherDbHelper.DATABASE_NAME).length();
+        assertTrue("Error: Packed store should be smaller than the database",
+                mStore.sizeOnDisk() < sqliteSize);
+        mContext.deleteDatabase(WeatherDbHelper.DATABASE_NAME);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app.sync;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.test.AndroidTestCase;
+import android.text.format.DateUtils;
+
+import com.example.android.sunshine.app.R;
+import com.example.android.sunshine.app.data.WeatherContract;
+import com.example.android.sunshine.app.data.WeatherContract.LocationEntry;
+import com.example.android.sunshine.app.data.WeatherContract.WeatherEntry;
+
+/*
+    Seeds the provider with cached locations around a picked place and checks which forecast
+    SunshineSyncAdapter.copyNearbyForecast copies to it.
+ */
+public class TestNearbyForecast extends AndroidTestCase {
+
+    private static final String PICKED_LOCATION = "37.422,-122.0841";
+    private static final double PICKED_LAT = 37.4220;
+    private static final double PICKED_LON = -122.0841;
+
+    private static final int FRESH_WEATHER_ID = 800;
+    private static final int STALE_WEATHER_ID = 500;
+
+    private SunshineSyncAdapter mSyncAdapter;
+    private long mMaxAgeMillis;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        deleteAllRecords();
+        mSyncAdapter = new SunshineSyncAdapter(mContext, false);
+        mMaxAgeMillis = mContext.getResources()
+                .getInteger(R.integer.nearby_forecast_max_age_minutes) * 60 * 1000L;
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        deleteAllRecords();
+        super.tearDown();
+    }
+
+    private void deleteAllRecords() {
+        mContext.getContentResolver().delete(WeatherEntry.CONTENT_URI, null, null);
+        mContext.getContentResolver().delete(LocationEntry.CONTENT_URI, null, null);
+    }
+
+    public void testCopiesFreshRatherThanNearerStale() {
+        long now = System.currentTimeMillis();
+        // About 100m north of the picked place, but older than the forecast may be
+        insertLocation("stale", PICKED_LAT + 0.0009, PICKED_LON,
+                now - mMaxAgeMillis - 60 * 60 * 1000L, STALE_WEATHER_ID);
+        // About 300m north, and updated ten minutes ago
+        long freshLastUpdated = now - 10 * 60 * 1000L;
+        insertLocation("fresh", PICKED_LAT + 0.0027, PICKED_LON, freshLastUpdated,
+                FRESH_WEATHER_ID);
+
+        assertTrue("Error: Nothing was copied although a fresh forecast is nearby",
+                mSyncAdapter.copyNearbyForecast(PICKED_LOCATION, PICKED_LAT, PICKED_LON));
+
+        Cursor weatherCursor = mContext.getContentResolver().query(
+                WeatherEntry.buildWeatherLocation(PICKED_LOCATION),
+                new String[]{WeatherEntry.COLUMN_WEATHER_ID}, null, null, null);
+        assertTrue("Error: No forecast was copied to the picked location",
+                weatherCursor.moveToFirst());
+        assertEquals("Error: The stale forecast was copied instead of the fresh one",
+                FRESH_WEATHER_ID, weatherCursor.getInt(0));
+        weatherCursor.close();
+
+        Cursor locationCursor = mContext.getContentResolver().query(LocationEntry.CONTENT_URI,
+                new String[]{LocationEntry.COLUMN_LAST_UPDATED},
+                LocationEntry.COLUMN_LOCATION_SETTING + " = ?",
+                new String[]{PICKED_LOCATION}, null);
+        assertTrue("Error: The picked location was not added", locationCursor.moveToFirst());
+        assertEquals("Error: The copy didn't inherit the age of the copied forecast",
+                freshLastUpdated, locationCursor.getLong(0));
+        locationCursor.close();
+    }
+
+    public void testIgnoresStaleForecast() {
+        long now = System.currentTimeMillis();
+        insertLocation("stale", PICKED_LAT + 0.0009, PICKED_LON,
+                now - mMaxAgeMillis - 60 * 60 * 1000L, STALE_WEATHER_ID);
+
+        assertFalse("Error: A stale forecast was copied",
+                mSyncAdapter.copyNearbyForecast(PICKED_LOCATION, PICKED_LAT, PICKED_LON));
+
+        Cursor locationCursor = mContext.getContentResolver().query(LocationEntry.CONTENT_URI,
+                new String[]{LocationEntry._ID},
+                LocationEntry.COLUMN_LOCATION_SETTING + " = ?",
+                new String[]{PICKED_LOCATION}, null);
+        assertEquals("Error: The picked location was added without a forecast",
+                0, locationCursor.getCount());
+        locationCursor.close();
+    }
+
+    // A cached location with today's forecast, all of it of one weather condition
+    private void insertLocation(String locationSetting, double lat, double lon,
+                                long lastUpdated, int weatherId) {
+        ContentValues locationValues = new ContentValues();
+        locationValues.put(LocationEntry.COLUMN_LOCATION_SETTING, locationSetting);
+        locationValues.put(LocationEntry.COLUMN_CITY_NAME, locationSetting);
+        locationValues.put(LocationEntry.COLUMN_COORD_LAT, lat);
+        locationValues.put(LocationEntry.COLUMN_COORD_LONG, lon);
+        locationValues.put(LocationEntry.COLUMN_LAST_UPDATED, lastUpdated);
+        Uri locationUri = mContext.getContentResolver()
+                .insert(LocationEntry.CONTENT_URI, locationValues);
+        long locationId = ContentUris.parseId(locationUri);
+
+        long now = System.currentTimeMillis();
+        ContentValues[] weatherValues = new ContentValues[3];
+        for (int i = 0; i < weatherValues.length; i++) {
+            ContentValues values = new ContentValues();
+            values.put(WeatherEntry.COLUMN_LOC_KEY, locationId);
+            values.put(WeatherEntry.COLUMN_DATE,
+                    WeatherContract.normalizeDate(now + i * DateUtils.DAY_IN_MILLIS));
+            values.put(WeatherEntry.COLUMN_WEATHER_ID, weatherId);
+            values.put(WeatherEntry.COLUMN_SHORT_DESC, locationSetting);
+            values.put(WeatherEntry.COLUMN_MIN_TEMP, 10);
+            values.put(WeatherEntry.COLUMN_MAX_TEMP, 20);
+            values.put(WeatherEntry.COLUMN_HUMIDITY, 50);
+            values.put(WeatherEntry.COLUMN_PRESSURE, 1000);
+            values.put(WeatherEntry.COLUMN_WIND_SPEED, 2);
+            values.put(WeatherEntry.COLUMN_DEGREES, 90);
+            weatherValues[i] = values;
+        }
+        mContext.getContentResolver().bulkInsert(WeatherEntry.CONTENT_URI, weatherValues);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.AsyncTask;
+import android.util.Log;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.request.FutureTarget;
+import com.example.android.sunshine.app.data.WeatherContract;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Fetches the art pack images the stored forecast needs into Glide's disk cache, at the size
+ * and with the request each surface uses, so the list, the detail view, the widgets and the
+ * notification find them there, with or without a network.  Does nothing with the built in
+ * art.
+ *
+ * The sync calls this once it has stored a new forecast.  Switching art packs goes through
+ * switchArtPack, so the forecast is only redrawn with the new pack once its images are in.
+ */
+public class ArtPrefetcher {
+    private static final String LOG_TAG = ArtPrefetcher.class.getSimpleName();
+
+    private static final String[] FORECAST_COLUMNS = {
+            WeatherContract.WeatherEntry.COLUMN_WEATHER_ID
+    };
+    private static final int COL_WEATHER_CONDITION_ID = 0;
+
+    /**
+     * Blocks until every image has been fetched or failed, so must not be called on the main
+     * thread.
+     */
+    public static void prefetch(Context context) {
+        if (Utility.usingLocalGraphics(context)) {
+            return;
+        }
+        Set<String> artUrls = getArtUrls(context);
+        if (artUrls.isEmpty()) {
+            return;
+        }
+        RequestManager glide = Glide.with(context.getApplicationContext());
+        int listIconSize = ArtRequests.getListIconSize(context);
+        int artSize = ArtRequests.getArtSize(context);
+
+        // Start every request before waiting on any, so they load in parallel
+        long start = System.currentTimeMillis();
+        List<String> urls = new ArrayList<String>();
+        List<FutureTarget<?>> targets = new ArrayList<FutureTarget<?>>();
+        for (String artUrl : artUrls) {
+            urls.add(artUrl);
+            targets.add(ArtRequests.load(glide, artUrl, listIconSize)
+                    .into(listIconSize, listIconSize));
+            urls.add(artUrl);
+            targets.add(ArtRequests.load(glide, artUrl, artSize).into(artSize, artSize));
+            urls.add(artUrl);
+            targets.add(ArtRequests.loadWidgetIcon(glide, artUrl, listIconSize));
+        }
+        // Only today's art goes in the notification
+        String todayArtUrl = artUrls.iterator().next();
+        urls.add(todayArtUrl);
+        targets.add(ArtRequests.loadNotificationIcon(context, glide, todayArtUrl));
+
+        int failed = 0;
+        boolean interrupted = false;
+        for (int i = 0; i < targets.size(); i++) {
+            FutureTarget<?> target = targets.get(i);
+            try {
+                if (!interrupted) {
+                    target.get();
+                }
+            } catch (ExecutionException e) {
+                Log.w(LOG_TAG, "Unable to prefetch " + urls.get(i), e);
+                failed++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+            } finally {
+                // The image stays in the caches, the target just stops holding it
+                target.clear();
+            }
+        }
+        if (interrupted) {
+            return;
+        }
+        Log.d(LOG_TAG, "Prefetched " + (targets.size() - failed) + " of " + targets.size()
+                + " images in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * Prefetches the art of the newly chosen art pack on a background thread, then has the
+     * forecast reloaded so it shows the new art.
+     */
+    public static void switchArtPack(Context context) {
+        final Context appContext = context.getApplicationContext();
+        AsyncTask.execute(new Runnable() {
+            @Override
+            public void run() {
+                prefetch(appContext);
+                appContext.getContentResolver().notifyChange(
+                        WeatherContract.WeatherEntry.CONTENT_URI, null);
+            }
+        });
+    }
+
+    // The art of each day stored from today on, without repeats
+    private static Set<String> getArtUrls(Context context) {
+        Set<String> artUrls = new LinkedHashSet<String>();
+        Uri weatherUri = WeatherContract.WeatherEntry.buildWeatherLocationWithStartDate(
+                Utility.getPreferredLocation(context), System.currentTimeMillis());
+        Cursor cursor = context.getContentResolver().query(weatherUri, FORECAST_COLUMNS, null,
+                null, WeatherContract.WeatherEntry.COLUMN_DATE + " ASC");
+        if (cursor == null) {
+            return artUrls;
+        }
+        try {
+            while (cursor.moveToNext()) {
+                String artUrl = Utility.getArtUrlForWeatherCondition(context,
+                        cursor.getInt(COL_WEATHER_CONDITION_ID));
+                if (artUrl != null) {
+                    artUrls.add(artUrl);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return artUrls;
+    }
+}
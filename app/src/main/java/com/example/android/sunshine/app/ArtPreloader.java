@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.resource.drawable.GlideDrawable;
+import com.bumptech.glide.request.animation.GlideAnimation;
+import com.bumptech.glide.request.target.SimpleTarget;
+
+import java.util.LinkedList;
+
+/**
+ * Loads the art of the rows just past the end of the forecast list that is being scrolled
+ * toward, so it is in Glide's memory cache by the time those rows are bound.  Only does
+ * anything with a remote art pack.
+ *
+ * The preloaded images are held by up to maxPreload targets.  Clearing the oldest target
+ * hands its image back to the memory cache rather than dropping it.
+ */
+public class ArtPreloader extends RecyclerView.OnScrollListener {
+
+    private final RequestManager mGlide;
+    private final ForecastAdapter mAdapter;
+    private final int mMaxPreload;
+    private final LinkedList<SimpleTarget<GlideDrawable>> mTargets =
+            new LinkedList<SimpleTarget<GlideDrawable>>();
+
+    // The range of positions already asked for, end exclusive
+    private int mPreloadedStart;
+    private int mPreloadedEnd;
+    private ForecastRow[] mPreloadedRows;
+
+    public ArtPreloader(RequestManager glide, ForecastAdapter adapter, int maxPreload) {
+        mGlide = glide;
+        mAdapter = adapter;
+        mMaxPreload = maxPreload;
+    }
+
+    @Override
+    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager)) {
+            return;
+        }
+        LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+        int start;
+        int end;
+        if (dy < 0) {
+            end = linearLayoutManager.findFirstVisibleItemPosition();
+            start = end - mMaxPreload;
+        } else {
+            // Also called with no scroll after a layout, including the first
+            start = linearLayoutManager.findLastVisibleItemPosition() + 1;
+            end = start + mMaxPreload;
+        }
+        preload(Math.max(0, start), Math.min(end, mAdapter.getItemCount()));
+    }
+
+    private void preload(int start, int end) {
+        ForecastRow[] rows = mAdapter.getRows();
+        if (rows != mPreloadedRows) {
+            // A new set of rows, nothing of it has been asked for yet
+            mPreloadedRows = rows;
+            mPreloadedStart = 0;
+            mPreloadedEnd = 0;
+        }
+        for (int position = start; position < end; position++) {
+            if (position >= mPreloadedStart && position < mPreloadedEnd) {
+                continue;
+            }
+            String artUrl = rows[position].artUrl;
+            if (artUrl == null) {
+                continue;
+            }
+            int size = mAdapter.getArtSize(position);
+            SimpleTarget<GlideDrawable> target = new SimpleTarget<GlideDrawable>(size, size) {
+                @Override
+                public void onResourceReady(GlideDrawable resource,
+                                            GlideAnimation<? super GlideDrawable> animation) {
+                    // Nothing to do, having the request hold the image is the point
+                }
+            };
+            mTargets.add(target);
+            if (mTargets.size() > mMaxPreload) {
+                Glide.clear(mTargets.removeFirst());
+            }
+            ArtRequests.load(mGlide, artUrl, size).into(target);
+        }
+        mPreloadedStart = start;
+        mPreloadedEnd = end;
+    }
+
+    /**
+     * Lets go of every preloaded image.
+     */
+    public void clear() {
+        for (SimpleTarget<GlideDrawable> target : mTargets) {
+            Glide.clear(target);
+        }
+        mTargets.clear();
+        mPreloadedRows = null;
+    }
+}
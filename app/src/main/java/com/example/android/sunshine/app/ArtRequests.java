@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.util.Log;
+
+import com.bumptech.glide.BitmapRequestBuilder;
+import com.bumptech.glide.DrawableRequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.resource.drawable.GlideDrawable;
+import com.bumptech.glide.request.FutureTarget;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+/**
+ * Builds the Glide requests for art pack images, so the forecast list, its preloader and the
+ * detail view ask for each image at the same size with the same transformation.  Glide keys
+ * its caches on both, so a bitmap decoded for one of them is a memory cache hit for the rest.
+ *
+ * There are two sizes: the list's small icon, and the large art of today's row and the
+ * detail view.  The widgets and the notification want bitmaps at sizes of their own, see
+ * loadWidgetIcon and loadNotificationIcon.
+ */
+public class ArtRequests {
+    private static final String LOG_TAG = ArtRequests.class.getSimpleName();
+
+    // How many displayed images between logging the hit rate in debug builds
+    private static final int LOG_INTERVAL = 25;
+
+    private static int sRequests;
+    private static int sMemoryHits;
+
+    private static final RequestListener<String, GlideDrawable> sHitCounter =
+            new RequestListener<String, GlideDrawable>() {
+                @Override
+                public boolean onException(Exception e, String model,
+                                           Target<GlideDrawable> target,
+                                           boolean isFirstResource) {
+                    return false;
+                }
+
+                @Override
+                public boolean onResourceReady(GlideDrawable resource, String model,
+                                               Target<GlideDrawable> target,
+                                               boolean isFromMemoryCache,
+                                               boolean isFirstResource) {
+                    countRequest(isFromMemoryCache);
+                    return false;
+                }
+            };
+
+    public static int getListIconSize(Context context) {
+        return context.getResources().getDimensionPixelSize(R.dimen.list_icon);
+    }
+
+    public static int getArtSize(Context context) {
+        return context.getResources().getDimensionPixelSize(R.dimen.today_icon);
+    }
+
+    /**
+     * The size the platform shows a notification's large icon at.
+     */
+    @SuppressLint("InlinedApi")
+    public static int getNotificationIconWidth(Context context) {
+        // On Honeycomb and higher devices, we can retrieve the size of the large icon
+        // Prior to that, we use a fixed size
+        Resources resources = context.getResources();
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB
+                ? resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_width)
+                : resources.getDimensionPixelSize(R.dimen.notification_large_icon_default);
+    }
+
+    @SuppressLint("InlinedApi")
+    public static int getNotificationIconHeight(Context context) {
+        Resources resources = context.getResources();
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB
+                ? resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_height)
+                : resources.getDimensionPixelSize(R.dimen.notification_large_icon_default);
+    }
+
+    /**
+     * A request for an image that is about to be shown.  These count towards the hit rate.
+     */
+    public static DrawableRequestBuilder<String> display(RequestManager glide, String url,
+                                                         int size, int errorResource) {
+        return load(glide, url, size)
+                .listener(sHitCounter)
+                .error(errorResource)
+                .crossFade();
+    }
+
+    /**
+     * A request for an image that may be shown soon.
+     */
+    public static DrawableRequestBuilder<String> load(RequestManager glide, String url,
+                                                      int size) {
+        return glide.load(url)
+                .override(size, size)
+                .fitCenter();
+    }
+
+    /**
+     * A request for an image as a bitmap, for RemoteViews and notifications.  The size, and
+     * any transformation, are up to the caller.
+     */
+    public static BitmapRequestBuilder<String, Bitmap> loadBitmap(RequestManager glide,
+                                                                 String url) {
+        return glide.load(url)
+                .asBitmap();
+    }
+
+    /**
+     * Starts loading a widget row's icon, at the size of the list's icons, which is what the
+     * widget's rows use too.
+     */
+    public static FutureTarget<Bitmap> loadWidgetIcon(RequestManager glide, String url,
+                                                      int size) {
+        return loadBitmap(glide, url)
+                .fitCenter()
+                .into(size, size);
+    }
+
+    /**
+     * Starts loading the weather notification's large icon.
+     */
+    public static FutureTarget<Bitmap> loadNotificationIcon(Context context, RequestManager glide,
+                                                            String url) {
+        return loadBitmap(glide, url)
+                .fitCenter()
+                .into(getNotificationIconWidth(context), getNotificationIconHeight(context));
+    }
+
+    static synchronized void countRequest(boolean isFromMemoryCache) {
+        sRequests++;
+        if (isFromMemoryCache) {
+            sMemoryHits++;
+        }
+        if (BuildConfig.DEBUG && sRequests % LOG_INTERVAL == 0) {
+            Log.d(LOG_TAG, "Art memory cache hit rate " + getMemoryHitRate()
+                    + " over " + sRequests + " images");
+        }
+    }
+
+    /**
+     * The fraction of displayed images that came from Glide's memory cache since the process
+     * started, or 0 if none have been shown.
+     */
+    public static synchronized float getMemoryHitRate() {
+        return sRequests == 0 ? 0 : (float) sMemoryHits / sRequests;
+    }
+}
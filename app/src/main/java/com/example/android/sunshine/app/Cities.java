@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.android.sunshine.core.Gazetteer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * The list of cities bundled in assets/gazetteer.tsv, which the location setting completes
+ * from and resolves to coordinates.  Read the first time it is asked for; the file is a few
+ * kilobytes.
+ */
+public class Cities {
+    private static final String LOG_TAG = Cities.class.getSimpleName();
+
+    private static final String ASSET_NAME = "gazetteer.tsv";
+
+    private static Gazetteer sGazetteer;
+    private static boolean sRead;
+
+    /**
+     * Returns the bundled cities, or null if they couldn't be read.
+     */
+    public static synchronized Gazetteer get(Context context) {
+        if (!sRead) {
+            sRead = true;
+            Reader reader = null;
+            try {
+                reader = new InputStreamReader(context.getAssets().open(ASSET_NAME), "UTF-8");
+                sGazetteer = Gazetteer.read(reader);
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Unable to read " + ASSET_NAME, e);
+            } finally {
+                if (reader != null) {
+                    try {
+                        reader.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        }
+        return sGazetteer;
+    }
+
+    /**
+     * The bundled city a location setting names, or null if there isn't one.
+     */
+    public static Gazetteer.City find(Context context, String location) {
+        Gazetteer gazetteer = get(context);
+        return gazetteer == null ? null : gazetteer.find(location);
+    }
+}
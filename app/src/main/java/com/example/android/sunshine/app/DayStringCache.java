@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.support.v4.util.LruCache;
+
+import com.example.android.sunshine.core.DateMath;
+
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Remembers the day strings Utility formats.  A day's strings only depend on its Julian day,
+ * which day is today, the locale and the time zone, so they are keyed by the day and the kind
+ * of string, and the cache starts over whenever one of the others changes.
+ *
+ * Keys carry the generation they were made in, so a string formatted just before local
+ * midnight can't be stored as the next day's.
+ */
+class DayStringCache {
+
+    static final int FRIENDLY = 0;
+    static final int FRIENDLY_LONG_TODAY = 1;
+    static final int FULL_FRIENDLY = 2;
+    static final int DAY_NAME = 3;
+    static final int MONTH_DAY = 4;
+    private static final int KIND_BITS = 3;
+
+    // Two weeks of every kind, more than the list, detail view, widgets and notification use
+    private static final int MAX_SIZE = 14 * 5;
+
+    private static final LruCache<Long, String> sCache = new LruCache<Long, String>(MAX_SIZE);
+
+    private static long sGeneration;
+    private static int sToday;
+    private static Locale sLocale;
+    private static TimeZone sTimeZone;
+
+    /**
+     * Returns the key for a kind of string for a date, starting the cache over first if the
+     * day, locale or time zone has changed since the last call.
+     */
+    static synchronized Long key(int kind, long dateInMillis) {
+        long now = System.currentTimeMillis();
+        TimeZone timeZone = TimeZone.getDefault();
+        Locale locale = Locale.getDefault();
+        // Both days use the offset in effect now, like WeatherFormat.getDayKind
+        long gmtOffsetSeconds = timeZone.getOffset(now) / 1000;
+        int today = DateMath.getJulianDay(now, gmtOffsetSeconds);
+        if (today != sToday || !locale.equals(sLocale) || !timeZone.equals(sTimeZone)) {
+            sCache.evictAll();
+            sGeneration++;
+            sToday = today;
+            sLocale = locale;
+            sTimeZone = timeZone;
+        }
+        long julianDay = DateMath.getJulianDay(dateInMillis, gmtOffsetSeconds);
+        return (sGeneration << 32) | (julianDay << KIND_BITS) | kind;
+    }
+
+    static String get(Long key) {
+        return sCache.get(key);
+    }
+
+    static void put(Long key, String value) {
+        sCache.put(key, value);
+    }
+}
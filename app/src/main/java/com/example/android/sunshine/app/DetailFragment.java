@@ -38,9 +38,15 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.resource.drawable.GlideDrawable;
+import com.bumptech.glide.request.animation.GlideAnimation;
+import com.bumptech.glide.request.target.SimpleTarget;
 import com.example.android.sunshine.app.data.WeatherContract;
 import com.example.android.sunshine.app.data.WeatherContract.WeatherEntry;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * A placeholder fragment containing a simple view.
  */
@@ -49,12 +55,21 @@ public class DetailFragment extends Fragment implements LoaderManager.LoaderCall
     private static final String LOG_TAG = DetailFragment.class.getSimpleName();
     static final String DETAIL_URI = "URI";
     static final String DETAIL_TRANSITION_ANIMATION = "DTA";
+    static final String DETAIL_DAY = "DAY";
 
     private static final String FORECAST_SHARE_HASHTAG = " #SunshineApp";
 
     private String mForecast;
     private Uri mUri;
     private boolean mTransitionAnimation;
+    // The selected day's values as the list had them, if it passed them along
+    private ForecastDay mDay;
+    // The day on screen and the units it was drawn in, so a units switch can redraw it
+    private ForecastDay mShownDay;
+    private boolean mShownMetric;
+    // Holding the art of the days next to this one, see prefetchDays
+    private final List<SimpleTarget<GlideDrawable>> mPrefetchTargets =
+            new ArrayList<SimpleTarget<GlideDrawable>>();
 
     private static final int DETAIL_LOADER = 0;
 
@@ -111,6 +126,7 @@ public class DetailFragment extends Fragment implements LoaderManager.LoaderCall
         if (arguments != null) {
             mUri = arguments.getParcelable(DetailFragment.DETAIL_URI);
             mTransitionAnimation = arguments.getBoolean(DetailFragment.DETAIL_TRANSITION_ANIMATION, false);
+            mDay = arguments.getParcelable(DetailFragment.DETAIL_DAY);
         }
 
         View rootView = inflater.inflate(R.layout.fragment_detail_start, container, false);
@@ -153,10 +169,87 @@ public class DetailFragment extends Fragment implements LoaderManager.LoaderCall
 
     @Override
     public void onActivityCreated(Bundle savedInstanceState) {
+        // Draw the day the list handed us straight away.  The loader still runs, and
+        // refreshes it if the stored values have changed since.
+        if (mDay != null && mUri != null
+                && WeatherContract.WeatherEntry.getDateFromUri(mUri) == mDay.date) {
+            bindDay(mDay);
+            onDayShown();
+        }
         getLoaderManager().initLoader(DETAIL_LOADER, null, this);
         super.onActivityCreated(savedInstanceState);
     }
 
+    /**
+     * Points this fragment at another day, without the new fragment and layout inflation of
+     * a fragment transaction.  Used by the two pane layout when a different day is picked.
+     * The day's values, if given, are drawn right away, and the loader is restarted for the
+     * new uri.
+     */
+    void showDay(Uri uri, ForecastDay day) {
+        mUri = uri;
+        mDay = day;
+        // Keep the arguments current, so the fragment comes back showing this day.  MainActivity
+        // always gives the two pane fragment arguments, even before any day is picked.
+        Bundle arguments = getArguments();
+        arguments.putParcelable(DETAIL_URI, uri);
+        arguments.putParcelable(DETAIL_DAY, day);
+        if (day != null && getView() != null
+                && WeatherContract.WeatherEntry.getDateFromUri(uri) == day.date) {
+            bindDay(day);
+            onDayShown();
+        }
+        getLoaderManager().restartLoader(DETAIL_LOADER, null, this);
+    }
+
+    /**
+     * Loads the art of days the user is likely to pick next, so showing them doesn't wait on
+     * the network or a decode.  Replaces the days prefetched before.
+     */
+    void prefetchDays(ForecastDay[] days) {
+        clearPrefetchedArt();
+        if (Utility.usingLocalGraphics(getActivity())) {
+            return;
+        }
+        int size = ArtRequests.getArtSize(getActivity());
+        for (ForecastDay day : days) {
+            SimpleTarget<GlideDrawable> target = new SimpleTarget<GlideDrawable>(size, size) {
+                @Override
+                public void onResourceReady(GlideDrawable resource,
+                                            GlideAnimation<? super GlideDrawable> animation) {
+                    // Holding on to the image until the day is shown is all that's needed
+                }
+            };
+            mPrefetchTargets.add(target);
+            ArtRequests.load(Glide.with(this),
+                    Utility.getArtUrlForWeatherCondition(getActivity(), day.weatherId), size)
+                    .into(target);
+        }
+    }
+
+    private void clearPrefetchedArt() {
+        for (SimpleTarget<GlideDrawable> target : mPrefetchTargets) {
+            Glide.clear(target);
+        }
+        mPrefetchTargets.clear();
+    }
+
+    @Override
+    public void onDestroyView() {
+        clearPrefetchedArt();
+        super.onDestroyView();
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        // Units are switched in SettingsActivity.  Only the formatting changes, so there's no
+        // need to query again.
+        if (mShownDay != null && mShownMetric != Utility.isMetric(getActivity())) {
+            bindDay(mShownDay);
+        }
+    }
+
     void onLocationChanged( String newLocation ) {
         // replace the uri, since the location has changed
         Uri uri = mUri;
@@ -164,6 +257,12 @@ public class DetailFragment extends Fragment implements LoaderManager.LoaderCall
             long date = WeatherContract.WeatherEntry.getDateFromUri(uri);
             Uri updatedUri = WeatherContract.WeatherEntry.buildWeatherLocationWithDate(newLocation, date);
             mUri = updatedUri;
+            mDay = null;
+            Bundle arguments = getArguments();
+            if (arguments != null) {
+                arguments.putParcelable(DETAIL_URI, updatedUri);
+                arguments.remove(DETAIL_DAY);
+            }
             getLoaderManager().restartLoader(DETAIL_LOADER, null, this);
         }
     }
@@ -192,82 +291,86 @@ public class DetailFragment extends Fragment implements LoaderManager.LoaderCall
     @Override
     public void onLoadFinished(Loader<Cursor> loader, Cursor data) {
         if (data != null && data.moveToFirst()) {
-            ViewParent vp = getView().getParent();
-            if ( vp instanceof CardView ) {
-                ((View)vp).setVisibility(View.VISIBLE);
-            }
+            bindDay(new ForecastDay(
+                    data.getLong(COL_WEATHER_DATE),
+                    data.getInt(COL_WEATHER_CONDITION_ID),
+                    data.getDouble(COL_WEATHER_MAX_TEMP),
+                    data.getDouble(COL_WEATHER_MIN_TEMP),
+                    data.getFloat(COL_WEATHER_HUMIDITY),
+                    data.getFloat(COL_WEATHER_PRESSURE),
+                    data.getFloat(COL_WEATHER_WIND_SPEED),
+                    data.getFloat(COL_WEATHER_DEGREES)));
+        }
+        onDayShown();
+    }
 
-            // Read weather condition ID from cursor
-            int weatherId = data.getInt(COL_WEATHER_CONDITION_ID);
-
-            if ( Utility.usingLocalGraphics(getActivity()) ) {
-                mIconView.setImageResource(Utility.getArtResourceForWeatherCondition(weatherId));
-            } else {
-                // Use weather art image
-                Glide.with(this)
-                        .load(Utility.getArtUrlForWeatherCondition(getActivity(), weatherId))
-                        .error(Utility.getArtResourceForWeatherCondition(weatherId))
-                        .crossFade()
-                        .into(mIconView);
-            }
+    private void bindDay(ForecastDay day) {
+        mShownDay = day;
+        mShownMetric = Utility.isMetric(getActivity());
+
+        ViewParent vp = getView().getParent();
+        if ( vp instanceof CardView ) {
+            ((View)vp).setVisibility(View.VISIBLE);
+        }
 
-            // Read date from cursor and update views for day of week and date
-            long date = data.getLong(COL_WEATHER_DATE);
-            String dateText = Utility.getFullFriendlyDayString(getActivity(),date);
-            mDateView.setText(dateText);
-
-            // Get description from weather condition ID
-            String description = Utility.getStringForWeatherCondition(getActivity(), weatherId);
-            mDescriptionView.setText(description);
-            mDescriptionView.setContentDescription(getString(R.string.a11y_forecast, description));
-
-            // For accessibility, add a content description to the icon field. Because the ImageView
-            // is independently focusable, it's better to have a description of the image. Using
-            // null is appropriate when the image is purely decorative or when the image already
-            // has text describing it in the same UI component.
-            mIconView.setContentDescription(getString(R.string.a11y_forecast_icon, description));
-
-            // Read high temperature from cursor and update view
-            boolean isMetric = Utility.isMetric(getActivity());
-
-            double high = data.getDouble(COL_WEATHER_MAX_TEMP);
-            String highString = Utility.formatTemperature(getActivity(), high);
-            mHighTempView.setText(highString);
-            mHighTempView.setContentDescription(getString(R.string.a11y_high_temp, highString));
-
-            // Read low temperature from cursor and update view
-            double low = data.getDouble(COL_WEATHER_MIN_TEMP);
-            String lowString = Utility.formatTemperature(getActivity(), low);
-            mLowTempView.setText(lowString);
-            mLowTempView.setContentDescription(getString(R.string.a11y_low_temp, lowString));
-
-            // Read humidity from cursor and update view
-            float humidity = data.getFloat(COL_WEATHER_HUMIDITY);
-            mHumidityView.setText(getActivity().getString(R.string.format_humidity, humidity));
-            mHumidityView.setContentDescription(getString(R.string.a11y_humidity, mHumidityView.getText()));
-            mHumidityLabelView.setContentDescription(mHumidityView.getContentDescription());
-
-            // Read wind speed and direction from cursor and update view
-            float windSpeedStr = data.getFloat(COL_WEATHER_WIND_SPEED);
-            float windDirStr = data.getFloat(COL_WEATHER_DEGREES);
-            mWindView.setText(Utility.getFormattedWind(getActivity(), windSpeedStr, windDirStr));
-            mWindView.setContentDescription(getString(R.string.a11y_wind, mWindView.getText()));
-            mWindLabelView.setContentDescription(mWindView.getContentDescription());
-
-            // Read pressure from cursor and update view
-            float pressure = data.getFloat(COL_WEATHER_PRESSURE);
-            mPressureView.setText(getString(R.string.format_pressure, pressure));
-            mPressureView.setContentDescription(getString(R.string.a11y_pressure, mPressureView.getText()));
-            mPressureLabelView.setContentDescription(mPressureView.getContentDescription());
-
-            // We still need this for the share intent
-            mForecast = String.format("%s - %s - %s/%s", dateText, description, high, low);
+        int weatherId = day.weatherId;
 
+        if ( Utility.usingLocalGraphics(getActivity()) ) {
+            mIconView.setImageResource(Utility.getArtResourceForWeatherCondition(weatherId));
+        } else {
+            // Use weather art image
+            // At the size today's row in the list uses, so they share the image
+            ArtRequests.display(Glide.with(this),
+                    Utility.getArtUrlForWeatherCondition(getActivity(), weatherId),
+                    ArtRequests.getArtSize(getActivity()),
+                    Utility.getArtResourceForWeatherCondition(weatherId))
+                    .into(mIconView);
         }
+
+        // Update views for day of week and date
+        String dateText = Utility.getFullFriendlyDayString(getActivity(), day.date);
+        mDateView.setText(dateText);
+
+        // Get description from weather condition ID
+        String description = Utility.getStringForWeatherCondition(getActivity(), weatherId);
+        mDescriptionView.setText(description);
+        mDescriptionView.setContentDescription(getString(R.string.a11y_forecast, description));
+
+        // For accessibility, add a content description to the icon field. Because the ImageView
+        // is independently focusable, it's better to have a description of the image. Using
+        // null is appropriate when the image is purely decorative or when the image already
+        // has text describing it in the same UI component.
+        mIconView.setContentDescription(getString(R.string.a11y_forecast_icon, description));
+
+        String highString = Utility.formatTemperature(getActivity(), day.high);
+        mHighTempView.setText(highString);
+        mHighTempView.setContentDescription(getString(R.string.a11y_high_temp, highString));
+
+        String lowString = Utility.formatTemperature(getActivity(), day.low);
+        mLowTempView.setText(lowString);
+        mLowTempView.setContentDescription(getString(R.string.a11y_low_temp, lowString));
+
+        mHumidityView.setText(getActivity().getString(R.string.format_humidity, day.humidity));
+        mHumidityView.setContentDescription(getString(R.string.a11y_humidity, mHumidityView.getText()));
+        mHumidityLabelView.setContentDescription(mHumidityView.getContentDescription());
+
+        mWindView.setText(Utility.getFormattedWind(getActivity(), day.windSpeed, day.degrees));
+        mWindView.setContentDescription(getString(R.string.a11y_wind, mWindView.getText()));
+        mWindLabelView.setContentDescription(mWindView.getContentDescription());
+
+        mPressureView.setText(getString(R.string.format_pressure, day.pressure));
+        mPressureView.setContentDescription(getString(R.string.a11y_pressure, mPressureView.getText()));
+        mPressureLabelView.setContentDescription(mPressureView.getContentDescription());
+
+        // We still need this for the share intent
+        mForecast = String.format("%s - %s - %s/%s", dateText, description, day.high, day.low);
+    }
+
+    private void onDayShown() {
         AppCompatActivity activity = (AppCompatActivity)getActivity();
         Toolbar toolbarView = (Toolbar) getView().findViewById(R.id.toolbar);
 
-        // We need to start the enter transition after the data has loaded
+        // We need to start the enter transition after the data has been shown
         if ( mTransitionAnimation ) {
             activity.supportStartPostponedEnterTransition();
 
@@ -30,11 +30,12 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.bumptech.glide.Glide;
-import com.example.android.sunshine.app.data.WeatherContract;
 
 /**
  * {@link ForecastAdapter} exposes a list of weather forecasts
  * from a {@link android.database.Cursor} to a {@link android.support.v7.widget.RecyclerView}.
+ * The rows it binds are the {@link ForecastRow}s a {@link ForecastLoader} built along with the
+ * cursor.
  */
 public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.ForecastAdapterViewHolder> {
 
@@ -45,10 +46,16 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
     private boolean mUseTodayLayout = true;
 
     private Cursor mCursor;
+    private ForecastRow[] mRows;
+    // Whether mRows came from a ForecastSnapshot rather than a cursor
+    private boolean mShowingSnapshot;
+    private FrameTracker mFrameTracker;
     final private Context mContext;
     final private ForecastAdapterOnClickHandler mClickHandler;
     final private View mEmptyView;
     final private ItemChoiceManager mICM;
+    final private int mArtSize;
+    final private int mListIconSize;
 
     /**
      * Cache of the children views for a forecast list item.
@@ -73,23 +80,26 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
         @Override
         public void onClick(View v) {
             int adapterPosition = getAdapterPosition();
-            mCursor.moveToPosition(adapterPosition);
-            int dateColumnIndex = mCursor.getColumnIndex(WeatherContract.WeatherEntry.COLUMN_DATE);
-            mClickHandler.onClick(mCursor.getLong(dateColumnIndex), this);
+            mClickHandler.onClick(mRows[adapterPosition], this);
             mICM.onClick(this);
         }
     }
 
     public static interface ForecastAdapterOnClickHandler {
-        void onClick(Long date, ForecastAdapterViewHolder vh);
+        void onClick(ForecastRow row, ForecastAdapterViewHolder vh);
     }
 
     public ForecastAdapter(Context context, ForecastAdapterOnClickHandler dh, View emptyView, int choiceMode) {
         mContext = context;
         mClickHandler = dh;
         mEmptyView = emptyView;
+        // Ids are the rows' dates, which unlike the weather table's _ids survive a sync.  Has
+        // to be set before ItemChoiceManager starts observing.
+        setHasStableIds(true);
         mICM = new ItemChoiceManager(this);
         mICM.setChoiceMode(choiceMode);
+        mArtSize = ArtRequests.getArtSize(context);
+        mListIconSize = ArtRequests.getListIconSize(context);
     }
 
     /*
@@ -124,65 +134,62 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
 
     @Override
     public void onBindViewHolder(ForecastAdapterViewHolder forecastAdapterViewHolder, int position) {
-        mCursor.moveToPosition(position);
-        int weatherId = mCursor.getInt(ForecastFragment.COL_WEATHER_CONDITION_ID);
+        long bindStartNanos = mFrameTracker != null ? System.nanoTime() : 0;
+        ForecastRow row = mRows[position];
         int defaultImage;
-        boolean useLongToday;
+        String dateText;
 
         switch (getItemViewType(position)) {
             case VIEW_TYPE_TODAY:
-                defaultImage = Utility.getArtResourceForWeatherCondition(weatherId);
-                useLongToday = true;
+                defaultImage = row.artResource;
+                dateText = row.longDateText;
                 break;
             default:
-                defaultImage = Utility.getIconResourceForWeatherCondition(weatherId);
-                useLongToday = false;
+                defaultImage = row.iconResource;
+                dateText = row.dateText;
         }
 
-        if ( Utility.usingLocalGraphics(mContext) ) {
+        if ( row.artUrl == null ) {
             forecastAdapterViewHolder.mIconView.setImageResource(defaultImage);
         } else {
-            Glide.with(mContext)
-                    .load(Utility.getArtUrlForWeatherCondition(mContext, weatherId))
-                    .error(defaultImage)
-                    .crossFade()
+            ArtRequests.display(Glide.with(mContext), row.artUrl, getArtSize(position),
+                    defaultImage)
                     .into(forecastAdapterViewHolder.mIconView);
         }
 
         // this enables better animations. even if we lose state due to a device rotation,
-        // the animator can use this to re-find the original view
-        ViewCompat.setTransitionName(forecastAdapterViewHolder.mIconView, "iconView" + position);
+        // the animator can use this to re-find the original view.  Keyed by date, as rows
+        // can move when only part of the list is notified
 
-        // Read date from cursor
-        long dateInMillis = mCursor.getLong(ForecastFragment.COL_WEATHER_DATE);
+        ViewCompat.setTransitionName(forecastAdapterViewHolder.mIconView, "iconView" + row.date);
 
-        // Find TextView and set formatted date on it
-        forecastAdapterViewHolder.mDateView.setText(Utility.getFriendlyDayString(mContext, dateInMillis, useLongToday));
+        forecastAdapterViewHolder.mDateView.setText(dateText);
 
-        // Read weather forecast from cursor
-        String description = Utility.getStringForWeatherCondition(mContext, weatherId);
-
-        // Find TextView and set weather forecast on it
-        forecastAdapterViewHolder.mDescriptionView.setText(description);
-        forecastAdapterViewHolder.mDescriptionView.setContentDescription(mContext.getString(R.string.a11y_forecast, description));
+        forecastAdapterViewHolder.mDescriptionView.setText(row.description);
+        forecastAdapterViewHolder.mDescriptionView.setContentDescription(row.descriptionA11y);
 
         // For accessibility, we don't want a content description for the icon field
         // because the information is repeated in the description view and the icon
         // is not individually selectable
 
-        // Read high temperature from cursor
-        double high = mCursor.getDouble(ForecastFragment.COL_WEATHER_MAX_TEMP);
-        String highString = Utility.formatTemperature(mContext, high);
-        forecastAdapterViewHolder.mHighTempView.setText(highString);
-        forecastAdapterViewHolder.mHighTempView.setContentDescription(mContext.getString(R.string.a11y_high_temp, highString));
+        forecastAdapterViewHolder.mHighTempView.setText(row.highText);
+        forecastAdapterViewHolder.mHighTempView.setContentDescription(row.highA11y);
 
-        // Read low temperature from cursor
-        double low = mCursor.getDouble(ForecastFragment.COL_WEATHER_MIN_TEMP);
-        String lowString = Utility.formatTemperature(mContext, low);
-        forecastAdapterViewHolder.mLowTempView.setText(lowString);
-        forecastAdapterViewHolder.mLowTempView.setContentDescription(mContext.getString(R.string.a11y_low_temp, lowString));
+        forecastAdapterViewHolder.mLowTempView.setText(row.lowText);
+        forecastAdapterViewHolder.mLowTempView.setContentDescription(row.lowA11y);
 
         mICM.onBindViewHolder(forecastAdapterViewHolder, position);
+
+        if (mFrameTracker != null) {
+            mFrameTracker.onBind(System.nanoTime() - bindStartNanos);
+        }
+    }
+
+    /**
+     * Reports how long each bind takes to a FrameTracker, or stops reporting if null.
+     */
+    public void setFrameTracker(FrameTracker frameTracker) {
+        mFrameTracker = frameTracker;
     }
 
     public void onRestoreInstanceState(Bundle savedInstanceState) {
@@ -201,20 +208,88 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
         return mICM.getSelectedItemPosition();
     }
 
+    /**
+     * The size, in pixels, art is loaded at for a position.
+     */
+    public int getArtSize(int position) {
+        return getItemViewType(position) == VIEW_TYPE_TODAY
+                ? mArtSize : mListIconSize;
+    }
+
+    ForecastRow[] getRows() {
+        return mRows;
+    }
+
     @Override
     public int getItemViewType(int position) {
         return (position == 0 && mUseTodayLayout) ? VIEW_TYPE_TODAY : VIEW_TYPE_FUTURE_DAY;
     }
 
+    @Override
+    public long getItemId(int position) {
+        return mRows[position].date;
+    }
+
     @Override
     public int getItemCount() {
-        if ( null == mCursor ) return 0;
-        return mCursor.getCount();
+        if ( null == mRows ) return 0;
+        return mRows.length;
+    }
+
+    /**
+     * Shows rows from a ForecastSnapshot until the first cursor arrives.  Does nothing if a
+     * cursor already has.
+     */
+    public void showSnapshot(ForecastRow[] rows) {
+        if (mRows != null) {
+            return;
+        }
+        mRows = rows;
+        mShowingSnapshot = true;
+        notifyDataSetChanged();
+        mEmptyView.setVisibility(getItemCount() == 0 ? View.VISIBLE : View.GONE);
     }
 
+    /**
+     * Swaps in a new cursor.  Cursors from a ForecastLoader come with their rows already
+     * built; any other cursor has its rows built here, on the calling thread.
+     *
+     * When the loader's diff was computed against the rows being shown, only the rows that
+     * changed are notified, so a sync that changes one day rebinds one row.
+     */
     public void swapCursor(Cursor newCursor) {
         mCursor = newCursor;
-        notifyDataSetChanged();
+        ForecastRow[] oldRows = mRows;
+        ForecastDiff diff = null;
+        if (newCursor instanceof ForecastLoader.ForecastCursor) {
+            ForecastLoader.ForecastCursor forecastCursor = (ForecastLoader.ForecastCursor) newCursor;
+            mRows = forecastCursor.getRows();
+            diff = forecastCursor.getDiff();
+        } else if (newCursor != null) {
+            mRows = ForecastRow.fromCursor(mContext, newCursor);
+        } else {
+            mRows = null;
+        }
+
+        if (mShowingSnapshot && oldRows != null && mRows != null) {
+            // The loader's first result.  Usually it matches the snapshot, so there's little
+            // to rebind
+            diff = ForecastDiff.calculate(oldRows, mRows);
+        }
+        mShowingSnapshot = false;
+
+        if (mRows != null && mRows == oldRows) {
+            // The loader delivered the same result again, e.g. on returning to the activity
+        } else if (diff != null && oldRows != null && diff.oldRows == oldRows) {
+            diff.dispatchUpdatesTo(this);
+            // The today layout belongs to position 0, not to a date
+            if (mUseTodayLayout && oldRows.length > 0 && mRows.length > 0
+                    && oldRows[0].date != mRows[0].date) {
+                notifyItemChanged(0);
+            }
+        } else {
+            notifyDataSetChanged();
+        }
         mEmptyView.setVisibility(getItemCount() == 0 ? View.VISIBLE : View.GONE);
     }
 
@@ -222,6 +297,21 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
         return mCursor;
     }
 
+    /**
+     * Returns the position of the row for a date, or RecyclerView.NO_POSITION if there isn't
+     * one.
+     */
+    public int getPositionForDate(long date) {
+        if (mRows != null) {
+            for (int i = 0; i < mRows.length; i++) {
+                if (mRows[i].date == date) {
+                    return i;
+                }
+            }
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
     public void selectView(RecyclerView.ViewHolder viewHolder) {
         if ( viewHolder instanceof ForecastAdapterViewHolder ) {
             ForecastAdapterViewHolder vfh = (ForecastAdapterViewHolder)viewHolder;
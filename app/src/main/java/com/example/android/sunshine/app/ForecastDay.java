@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * The stored values of one day's weather that the detail view shows.  The forecast list loads
+ * them along with its rows and hands the selected day to the detail view, which can then draw
+ * it without waiting for its own query.  Temperatures are in Celsius and wind speeds in km/h.
+ */
+public class ForecastDay implements Parcelable {
+    public final long date;
+    public final int weatherId;
+    public final double high;
+    public final double low;
+    public final float humidity;
+    public final float pressure;
+    public final float windSpeed;
+    public final float degrees;
+
+    public ForecastDay(long date, int weatherId, double high, double low, float humidity,
+                       float pressure, float windSpeed, float degrees) {
+        this.date = date;
+        this.weatherId = weatherId;
+        this.high = high;
+        this.low = low;
+        this.humidity = humidity;
+        this.pressure = pressure;
+        this.windSpeed = windSpeed;
+        this.degrees = degrees;
+    }
+
+    private ForecastDay(Parcel in) {
+        date = in.readLong();
+        weatherId = in.readInt();
+        high = in.readDouble();
+        low = in.readDouble();
+        humidity = in.readFloat();
+        pressure = in.readFloat();
+        windSpeed = in.readFloat();
+        degrees = in.readFloat();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeLong(date);
+        dest.writeInt(weatherId);
+        dest.writeDouble(high);
+        dest.writeDouble(low);
+        dest.writeFloat(humidity);
+        dest.writeFloat(pressure);
+        dest.writeFloat(windSpeed);
+        dest.writeFloat(degrees);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Parcelable.Creator<ForecastDay> CREATOR =
+            new Parcelable.Creator<ForecastDay>() {
+                @Override
+                public ForecastDay createFromParcel(Parcel in) {
+                    return new ForecastDay(in);
+                }
+
+                @Override
+                public ForecastDay[] newArray(int size) {
+                    return new ForecastDay[size];
+                }
+            };
+}
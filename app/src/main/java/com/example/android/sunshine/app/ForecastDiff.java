@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The changes that turn one snapshot of forecast rows into the next.  Both snapshots are
+ * sorted by date and a date appears at most once, so rows are matched by date in a single
+ * pass; a matched row that formats differently is a change.
+ *
+ * A diff is computed by ForecastLoader on its background thread and only applies to the
+ * exact array it was computed from, see ForecastAdapter.swapCursor.
+ */
+public class ForecastDiff {
+
+    private static final int OP_INSERT = 0;
+    private static final int OP_REMOVE = 1;
+    private static final int OP_CHANGE = 2;
+
+    public final ForecastRow[] oldRows;
+    public final ForecastRow[] newRows;
+
+    // Each op is {type, position, count}, with positions as they are when the op is dispatched
+    private final List<int[]> mOps = new ArrayList<int[]>();
+
+    private ForecastDiff(ForecastRow[] oldRows, ForecastRow[] newRows) {
+        this.oldRows = oldRows;
+        this.newRows = newRows;
+    }
+
+    public static ForecastDiff calculate(ForecastRow[] oldRows, ForecastRow[] newRows) {
+        ForecastDiff diff = new ForecastDiff(oldRows, newRows);
+        int oldIndex = 0;
+        int newIndex = 0;
+        // The adapter position of the next old row once the ops so far have been applied
+        int position = 0;
+        while (oldIndex < oldRows.length || newIndex < newRows.length) {
+            if (newIndex == newRows.length
+                    || (oldIndex < oldRows.length && oldRows[oldIndex].date < newRows[newIndex].date)) {
+                diff.add(OP_REMOVE, position);
+                oldIndex++;
+            } else if (oldIndex == oldRows.length
+                    || newRows[newIndex].date < oldRows[oldIndex].date) {
+                diff.add(OP_INSERT, position);
+                newIndex++;
+                position++;
+            } else {
+                if (!oldRows[oldIndex].contentEquals(newRows[newIndex])) {
+                    diff.add(OP_CHANGE, position);
+                }
+                oldIndex++;
+                newIndex++;
+                position++;
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Appends an op, merging it into the previous one when they form a single range.
+     */
+    private void add(int type, int position) {
+        if (!mOps.isEmpty()) {
+            int[] last = mOps.get(mOps.size() - 1);
+            if (last[0] == type) {
+                // Removes all happen at the same position, inserts and changes move along
+                int next = type == OP_REMOVE ? last[1] : last[1] + last[2];
+                if (next == position) {
+                    last[2]++;
+                    return;
+                }
+            }
+        }
+        mOps.add(new int[]{type, position, 1});
+    }
+
+    public boolean isEmpty() {
+        return mOps.isEmpty();
+    }
+
+    /**
+     * The ops in the order they are dispatched, as "insert 0+2, change 5+1" and so on.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int[] op : mOps) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            String type = op[0] == OP_INSERT ? "insert" : op[0] == OP_REMOVE ? "remove" : "change";
+            builder.append(type).append(' ').append(op[1]).append('+').append(op[2]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Sends the ops to an adapter that is showing oldRows and has just switched to newRows.
+     */
+    public void dispatchUpdatesTo(RecyclerView.Adapter adapter) {
+        for (int[] op : mOps) {
+            switch (op[0]) {
+                case OP_INSERT:
+                    adapter.notifyItemRangeInserted(op[1], op[2]);
+                    break;
+                case OP_REMOVE:
+                    adapter.notifyItemRangeRemoved(op[1], op[2]);
+                    break;
+                default:
+                    adapter.notifyItemRangeChanged(op[1], op[2]);
+            }
+        }
+    }
+}
@@ -29,8 +29,8 @@ import android.preference.PreferenceManager;
 import android.support.design.widget.AppBarLayout;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.LoaderManager;
-import android.support.v4.content.CursorLoader;
 import android.support.v4.content.Loader;
+import android.support.v4.os.TraceCompat;
 import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
@@ -46,10 +46,14 @@ import android.view.ViewTreeObserver;
 import android.widget.AbsListView;
 import android.widget.TextView;
 
+import com.bumptech.glide.Glide;
 import com.example.android.sunshine.app.data.WeatherContract;
 import com.example.android.sunshine.app.sync.SunshineSyncAdapter;
 import com.example.android.sunshine.app.wearable.TodayWearableIntentService;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Encapsulates fetching the forecast and displaying it as a {@link android.support.v7.widget.RecyclerView} layout.
  */
@@ -57,10 +61,12 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
     public static final String LOG_TAG = ForecastFragment.class.getSimpleName();
     private ForecastAdapter mForecastAdapter;
     private RecyclerView mRecyclerView;
+    private ArtPreloader mArtPreloader;
     private boolean mUseTodayLayout, mAutoSelectView;
     private int mChoiceMode;
     private boolean mHoldForTransition;
     private long mInitialSelectedDate = -1;
+    private FrameTracker mFrameTracker;
     public static final String ACTION_DATA_UPDATED =
             "com.example.android.sunshine.app.ACTION_DATA_UPDATED";
 
@@ -84,7 +90,12 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
             WeatherContract.LocationEntry.COLUMN_LOCATION_SETTING,
             WeatherContract.WeatherEntry.COLUMN_WEATHER_ID,
             WeatherContract.LocationEntry.COLUMN_COORD_LAT,
-            WeatherContract.LocationEntry.COLUMN_COORD_LONG
+            WeatherContract.LocationEntry.COLUMN_COORD_LONG,
+            // Not shown in the list, but handed to the detail view, see ForecastDay
+            WeatherContract.WeatherEntry.COLUMN_HUMIDITY,
+            WeatherContract.WeatherEntry.COLUMN_PRESSURE,
+            WeatherContract.WeatherEntry.COLUMN_WIND_SPEED,
+            WeatherContract.WeatherEntry.COLUMN_DEGREES
     };
 
     // These indices are tied to FORECAST_COLUMNS.  If FORECAST_COLUMNS changes, these
@@ -98,6 +109,10 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
     static final int COL_WEATHER_CONDITION_ID = 6;
     static final int COL_COORD_LAT = 7;
     static final int COL_COORD_LONG = 8;
+    static final int COL_WEATHER_HUMIDITY = 9;
+    static final int COL_WEATHER_PRESSURE = 10;
+    static final int COL_WEATHER_WIND_SPEED = 11;
+    static final int COL_WEATHER_DEGREES = 12;
 
     /**
      * A callback interface that all activities containing this fragment must
@@ -108,7 +123,14 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
         /**
          * DetailFragmentCallback for when an item has been selected.
          */
-        public void onItemSelected(Uri dateUri, ForecastAdapter.ForecastAdapterViewHolder vh);
+        public void onItemSelected(Uri dateUri, ForecastDay day,
+                                   ForecastAdapter.ForecastAdapterViewHolder vh);
+
+        /**
+         * Called when the forecast's first rows have been drawn, or the forecast turned out to
+         * be empty.  May be called more than once.
+         */
+        public void onForecastShown();
     }
 
     public ForecastFragment() {
@@ -126,6 +148,11 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
         SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(getActivity());
         sp.registerOnSharedPreferenceChangeListener(this);
         super.onResume();
+        // Units are switched in SettingsActivity, while this fragment isn't listening
+        Loader<Cursor> loader = getLoaderManager().getLoader(FORECAST_LOADER);
+        if (loader instanceof ForecastLoader) {
+            ((ForecastLoader) loader).updateUnits();
+        }
     }
 
     @Override
@@ -172,6 +199,7 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceState) {
+        TraceCompat.beginSection("ForecastFragment.onCreateView");
 
 
         View rootView = inflater.inflate(R.layout.fragment_main, container, false);
@@ -191,11 +219,12 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
         // use it to populate the RecyclerView it's attached to.
         mForecastAdapter = new ForecastAdapter(getActivity(), new ForecastAdapter.ForecastAdapterOnClickHandler() {
             @Override
-            public void onClick(Long date, ForecastAdapter.ForecastAdapterViewHolder vh) {
+            public void onClick(ForecastRow row, ForecastAdapter.ForecastAdapterViewHolder vh) {
                 String locationSetting = Utility.getPreferredLocation(getActivity());
                 ((Callback) getActivity())
                         .onItemSelected(WeatherContract.WeatherEntry.buildWeatherLocationWithDate(
-                                        locationSetting, date),
+                                        locationSetting, row.date),
+                                row.day,
                                 vh
                         );
             }
@@ -204,6 +233,26 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
         // specify an adapter (see also next example)
         mRecyclerView.setAdapter(mForecastAdapter);
 
+        // Draw the rows shown last time while the loader queries for the current ones
+        ForecastRow[] snapshot = ForecastSnapshot.read(getActivity());
+        if (snapshot != null) {
+            mForecastAdapter.showSnapshot(snapshot);
+        }
+
+        // Fetch art pack images a few rows ahead of the scroll
+        mArtPreloader = new ArtPreloader(Glide.with(this), mForecastAdapter,
+                getResources().getInteger(R.integer.art_preload_rows));
+        mRecyclerView.addOnScrollListener(mArtPreloader);
+
+        // FrameTracker can't be loaded before Jelly Bean, so check here rather than in it
+        if (getResources().getBoolean(R.bool.track_forecast_frames)
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameTracker = new FrameTracker("Forecast list",
+                    getActivity().getWindowManager().getDefaultDisplay().getRefreshRate());
+            mRecyclerView.addOnScrollListener(mFrameTracker);
+            mForecastAdapter.setFrameTracker(mFrameTracker);
+        }
+
         final View parallaxView = rootView.findViewById(R.id.parallax_bar);
         if (null != parallaxView) {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
@@ -252,8 +301,16 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
 
         mForecastAdapter.setUseTodayLayout(mUseTodayLayout);
 
-        // Send the weather forecast to the wearable
-        updateWearable();
+        // Send the weather forecast to the wearable, once the forecast is showing
+        StartupTaskRunner.runOnMainThread("updateWearable", new Runnable() {
+            @Override
+            public void run() {
+                if (isAdded()) {
+                    updateWearable();
+                }
+            }
+        });
+        TraceCompat.endSection();
         return rootView;
     }
 
@@ -332,7 +389,7 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
         Uri weatherForLocationUri = WeatherContract.WeatherEntry.buildWeatherLocationWithStartDate(
                 locationSetting, System.currentTimeMillis());
 
-        return new CursorLoader(getActivity(),
+        return new ForecastLoader(getActivity(),
                 weatherForLocationUri,
                 FORECAST_COLUMNS,
                 null,
@@ -343,9 +400,14 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
     @Override
     public void onLoadFinished(Loader<Cursor> loader, Cursor data) {
         mForecastAdapter.swapCursor(data);
+        if (data instanceof ForecastLoader.ForecastCursor) {
+            ForecastSnapshot.writeAsync(getActivity(),
+                    ((ForecastLoader.ForecastCursor) data).getRows());
+        }
         updateEmptyView();
         if ( data.getCount() == 0 ) {
             getActivity().supportStartPostponedEnterTransition();
+            ((Callback) getActivity()).onForecastShown();
         } else {
             mRecyclerView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
                 @Override
@@ -357,16 +419,7 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
                         int position = mForecastAdapter.getSelectedItemPosition();
                         if (position == RecyclerView.NO_POSITION &&
                                 -1 != mInitialSelectedDate) {
-                            Cursor data = mForecastAdapter.getCursor();
-                            int count = data.getCount();
-                            int dateColumn = data.getColumnIndex(WeatherContract.WeatherEntry.COLUMN_DATE);
-                            for ( int i = 0; i < count; i++ ) {
-                                data.moveToPosition(i);
-                                if ( data.getLong(dateColumn) == mInitialSelectedDate ) {
-                                    position = i;
-                                    break;
-                                }
-                            }
+                            position = mForecastAdapter.getPositionForDate(mInitialSelectedDate);
                         }
                         if (position == RecyclerView.NO_POSITION) position = 0;
                         // If we don't need to restart the loader, and there's a desired position to restore
@@ -379,6 +432,7 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
                         if ( mHoldForTransition ) {
                             getActivity().supportStartPostponedEnterTransition();
                         }
+                        ((Callback) getActivity()).onForecastShown();
                         return true;
                     }
                     return false;
@@ -390,12 +444,25 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
 
 
 
+    @Override
+    public void onDestroyView() {
+        // A view destroyed mid-scroll never settles, which is what would stop the tracker
+        if (null != mFrameTracker) {
+            mFrameTracker.stop();
+            mFrameTracker = null;
+        }
+        super.onDestroyView();
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
         if (null != mRecyclerView) {
             mRecyclerView.clearOnScrollListeners();
         }
+        if (null != mArtPreloader) {
+            mArtPreloader.clear();
+        }
     }
 
     @Override
@@ -414,6 +481,27 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
         mInitialSelectedDate = initialSelectedDate;
     }
 
+    /**
+     * The days either side of date in the list, the ones most likely to be picked next.  Empty
+     * if date isn't in the list.
+     */
+    public ForecastDay[] getAdjacentDays(long date) {
+        int position = mForecastAdapter == null ? RecyclerView.NO_POSITION
+                : mForecastAdapter.getPositionForDate(date);
+        if (position == RecyclerView.NO_POSITION) {
+            return new ForecastDay[0];
+        }
+        ForecastRow[] rows = mForecastAdapter.getRows();
+        List<ForecastDay> days = new ArrayList<ForecastDay>(2);
+        if (position > 0) {
+            days.add(rows[position - 1].day);
+        }
+        if (position < rows.length - 1) {
+            days.add(rows[position + 1].day);
+        }
+        return days.toArray(new ForecastDay[days.size()]);
+    }
+
     /*
         Updates the empty list view with contextually relevant information that the user can
         use to determine why they aren't seeing weather.
@@ -448,6 +536,7 @@ public class ForecastFragment extends Fragment implements LoaderManager.LoaderCa
     @Override
     public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
         if (key.equals(getString(R.string.pref_location_status_key))) {
+            PreferenceSnapshot.refresh(getActivity());
             updateEmptyView();
         }
     }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.net.Uri;
+import android.support.v4.content.CursorLoader;
+
+/**
+ * A CursorLoader that also formats the forecast list's rows while it is still on the
+ * background thread, and works out how they differ from the rows it delivered last.  The
+ * cursor it delivers is a ForecastCursor.
+ *
+ * Switching units doesn't need a new query, as only the formatting changes.  See
+ * updateUnits.
+ */
+public class ForecastLoader extends CursorLoader {
+
+    /**
+     * The query's cursor together with the rows built from it.
+     */
+    public static class ForecastCursor extends CursorWrapper {
+        // CursorWrapper.getWrappedCursor is API 11
+        private final Cursor mCursor;
+        private final ForecastRow[] mRows;
+        private final ForecastDiff mDiff;
+        // The units the rows' temperatures are in
+        private final boolean mIsMetric;
+        // Set once the query's cursor has been handed on to a ForecastCursor with rows
+        // in other units, which closes it instead
+        private boolean mHandedOn;
+
+        ForecastCursor(Cursor cursor, ForecastRow[] rows, ForecastDiff diff, boolean isMetric) {
+            super(cursor);
+            mCursor = cursor;
+            mRows = rows;
+            mDiff = diff;
+            mIsMetric = isMetric;
+        }
+
+        @Override
+        public void close() {
+            if (!mHandedOn) {
+                super.close();
+            }
+        }
+
+        @Override
+        public boolean isClosed() {
+            return mHandedOn || super.isClosed();
+        }
+
+        public ForecastRow[] getRows() {
+            return mRows;
+        }
+
+        /**
+         * The changes from the rows this loader delivered before, or null if this is its
+         * first result.
+         */
+        public ForecastDiff getDiff() {
+            return mDiff;
+        }
+    }
+
+    // Written on the main thread when a result is delivered, read by loadInBackground
+    private volatile ForecastRow[] mDeliveredRows;
+    // Only used on the main thread
+    private ForecastCursor mDeliveredCursor;
+
+    public ForecastLoader(Context context, Uri uri, String[] projection, String selection,
+                          String[] selectionArgs, String sortOrder) {
+        super(context, uri, projection, selection, selectionArgs, sortOrder);
+    }
+
+    @Override
+    public Cursor loadInBackground() {
+        Cursor cursor = super.loadInBackground();
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            // Read first, so a switch while formatting leaves these rows out of date rather
+            // than looking current.  deliverResult then catches them.
+            boolean isMetric = Utility.isMetric(getContext());
+            ForecastRow[] rows = ForecastRow.fromCursor(getContext(), cursor);
+            ForecastRow[] deliveredRows = mDeliveredRows;
+            ForecastDiff diff = deliveredRows == null ? null
+                    : ForecastDiff.calculate(deliveredRows, rows);
+            return new ForecastCursor(cursor, rows, diff, isMetric);
+        } catch (RuntimeException ex) {
+            cursor.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void deliverResult(Cursor cursor) {
+        if (cursor instanceof ForecastCursor) {
+            cursor = withCurrentUnits((ForecastCursor) cursor);
+        }
+        if (!isReset()) {
+            mDeliveredCursor = cursor instanceof ForecastCursor ? (ForecastCursor) cursor : null;
+            mDeliveredRows = mDeliveredCursor != null ? mDeliveredCursor.getRows() : null;
+        }
+        super.deliverResult(cursor);
+    }
+
+    /**
+     * If the units have changed since the rows were formatted, delivers them again formatted
+     * for the new units, over the same cursor.  Must be called on the main thread.
+     */
+    public void updateUnits() {
+        ForecastCursor cursor = mDeliveredCursor;
+        if (cursor != null && !cursor.isClosed()
+                && cursor.mIsMetric != Utility.isMetric(getContext())) {
+            deliverResult(cursor);
+        }
+    }
+
+    private ForecastCursor withCurrentUnits(ForecastCursor cursor) {
+        boolean isMetric = Utility.isMetric(getContext());
+        if (cursor.mIsMetric == isMetric || cursor.isClosed()) {
+            return cursor;
+        }
+        ForecastRow[] rows = ForecastRow.withCurrentUnits(getContext(), cursor.getRows());
+        ForecastRow[] deliveredRows = mDeliveredRows;
+        ForecastDiff diff = deliveredRows == null ? null
+                : ForecastDiff.calculate(deliveredRows, rows);
+        ForecastCursor formatted =
+                new ForecastCursor(cursor.mCursor, rows, diff, isMetric);
+        cursor.mHandedOn = true;
+        return formatted;
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        mDeliveredCursor = null;
+        mDeliveredRows = null;
+    }
+}
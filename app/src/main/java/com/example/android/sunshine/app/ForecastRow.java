@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.database.Cursor;
+
+/**
+ * One day of the forecast list, with everything the list shows already formatted.  Rows are
+ * built by ForecastLoader on its background thread, so binding a row only sets text and
+ * images.
+ */
+public class ForecastRow {
+    public final long date;
+    public final int weatherId;
+
+    // Only differs from dateText for today, which the today layout shows as "Today, June 24"
+    public final String longDateText;
+    public final String dateText;
+    public final String description;
+    public final String descriptionA11y;
+    public final String highText;
+    public final String highA11y;
+    public final String lowText;
+    public final String lowA11y;
+
+    public final int iconResource;
+    public final int artResource;
+    // null when using the built in graphics
+    public final String artUrl;
+
+    // The stored values, for the detail view
+    public final ForecastDay day;
+
+    private ForecastRow(Context context, Cursor cursor, boolean usingLocalGraphics) {
+        day = new ForecastDay(
+                cursor.getLong(ForecastFragment.COL_WEATHER_DATE),
+                cursor.getInt(ForecastFragment.COL_WEATHER_CONDITION_ID),
+                cursor.getDouble(ForecastFragment.COL_WEATHER_MAX_TEMP),
+                cursor.getDouble(ForecastFragment.COL_WEATHER_MIN_TEMP),
+                cursor.getFloat(ForecastFragment.COL_WEATHER_HUMIDITY),
+                cursor.getFloat(ForecastFragment.COL_WEATHER_PRESSURE),
+                cursor.getFloat(ForecastFragment.COL_WEATHER_WIND_SPEED),
+                cursor.getFloat(ForecastFragment.COL_WEATHER_DEGREES));
+        date = day.date;
+        weatherId = day.weatherId;
+
+        dateText = Utility.getFriendlyDayString(context, date, false);
+        String friendlyToday = Utility.getFriendlyDayString(context, date, true);
+        longDateText = friendlyToday.equals(dateText) ? dateText : friendlyToday;
+
+        description = Utility.getStringForWeatherCondition(context, weatherId);
+        descriptionA11y = context.getString(R.string.a11y_forecast, description);
+
+        highText = Utility.formatTemperature(context, day.high);
+        highA11y = context.getString(R.string.a11y_high_temp, highText);
+        lowText = Utility.formatTemperature(context, day.low);
+        lowA11y = context.getString(R.string.a11y_low_temp, lowText);
+
+        iconResource = Utility.getIconResourceForWeatherCondition(weatherId);
+        artResource = Utility.getArtResourceForWeatherCondition(weatherId);
+        artUrl = usingLocalGraphics ? null
+                : Utility.getArtUrlForWeatherCondition(context, weatherId);
+    }
+
+    /**
+     * A row formatted earlier, see ForecastSnapshot.  Resource ids aren't kept, as they can
+     * change between builds.
+     */
+    ForecastRow(ForecastDay day, String longDateText, String dateText,
+                String description, String descriptionA11y, String highText, String highA11y,
+                String lowText, String lowA11y, String artUrl) {
+        this.day = day;
+        date = day.date;
+        weatherId = day.weatherId;
+        this.longDateText = longDateText;
+        this.dateText = dateText;
+        this.description = description;
+        this.descriptionA11y = descriptionA11y;
+        this.highText = highText;
+        this.highA11y = highA11y;
+        this.lowText = lowText;
+        this.lowA11y = lowA11y;
+        iconResource = Utility.getIconResourceForWeatherCondition(weatherId);
+        artResource = Utility.getArtResourceForWeatherCondition(weatherId);
+        this.artUrl = artUrl;
+    }
+
+    /**
+     * Whether two rows would bind identically.  The date is not compared, rows are matched by
+     * date before this is asked.
+     */
+    public boolean contentEquals(ForecastRow other) {
+        return weatherId == other.weatherId
+                && iconResource == other.iconResource
+                && artResource == other.artResource
+                && longDateText.equals(other.longDateText)
+                && dateText.equals(other.dateText)
+                && description.equals(other.description)
+                && descriptionA11y.equals(other.descriptionA11y)
+                && highText.equals(other.highText)
+                && highA11y.equals(other.highA11y)
+                && lowText.equals(other.lowText)
+                && lowA11y.equals(other.lowA11y)
+                && (artUrl == null ? other.artUrl == null : artUrl.equals(other.artUrl));
+    }
+
+    /**
+     * Copies of rows with their temperatures formatted again, for the current units.  Only the
+     * temperatures depend on the units, so nothing else is redone.
+     */
+    public static ForecastRow[] withCurrentUnits(Context context, ForecastRow[] rows) {
+        ForecastRow[] formatted = new ForecastRow[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            ForecastRow row = rows[i];
+            String highText = Utility.formatTemperature(context, row.day.high);
+            String lowText = Utility.formatTemperature(context, row.day.low);
+            formatted[i] = new ForecastRow(row.day, row.longDateText, row.dateText,
+                    row.description, row.descriptionA11y,
+                    highText, context.getString(R.string.a11y_high_temp, highText),
+                    lowText, context.getString(R.string.a11y_low_temp, lowText),
+                    row.artUrl);
+        }
+        return formatted;
+    }
+
+    /**
+     * Builds a row for every row of a cursor with the ForecastFragment.FORECAST_COLUMNS
+     * projection.  Leaves the cursor positioned before the first row.
+     */
+    public static ForecastRow[] fromCursor(Context context, Cursor cursor) {
+        boolean usingLocalGraphics = Utility.usingLocalGraphics(context);
+        ForecastRow[] rows = new ForecastRow[cursor.getCount()];
+        cursor.moveToPosition(-1);
+        while (cursor.moveToNext()) {
+            rows[cursor.getPosition()] = new ForecastRow(context, cursor, usingLocalGraphics);
+        }
+        cursor.moveToPosition(-1);
+        return rows;
+    }
+}
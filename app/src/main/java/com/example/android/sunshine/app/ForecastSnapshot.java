@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.os.AsyncTask;
+import android.util.Log;
+
+import com.example.android.sunshine.core.DateMath;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * The forecast list's rows as last shown, kept in a small file so the next launch can draw
+ * them before the loader's query has returned.  The loader's result replaces them as soon as
+ * it arrives.
+ *
+ * The rows are already formatted, so the file records everything formatting depended on: the
+ * location, units, art pack, locale, time zone and day.  If any of those are different when
+ * it is read, the snapshot is ignored.
+ */
+public class ForecastSnapshot {
+    private static final String LOG_TAG = ForecastSnapshot.class.getSimpleName();
+
+    private static final String FILE_NAME = "forecast_snapshot";
+
+    // Bump when the file layout, or what a row holds, changes
+    private static final int FORMAT_VERSION = 2;
+
+    // The rows written last, so the same result delivered again isn't written again
+    private static ForecastRow[] sWrittenRows;
+
+    /**
+     * Returns the rows last written, or null if there aren't any or they were formatted with
+     * different settings.  Reads from disk, but the file is only a couple of kilobytes.
+     */
+    public static ForecastRow[] read(Context context) {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(getKey(context))) {
+                return null;
+            }
+            ForecastRow[] rows = new ForecastRow[in.readInt()];
+            for (int i = 0; i < rows.length; i++) {
+                ForecastDay day = new ForecastDay(
+                        in.readLong(),
+                        in.readInt(),
+                        in.readDouble(),
+                        in.readDouble(),
+                        in.readFloat(),
+                        in.readFloat(),
+                        in.readFloat(),
+                        in.readFloat());
+                rows[i] = new ForecastRow(
+                        day,
+                        in.readUTF(),
+                        in.readUTF(),
+                        in.readUTF(),
+                        in.readUTF(),
+                        in.readUTF(),
+                        in.readUTF(),
+                        in.readUTF(),
+                        in.readUTF(),
+                        in.readBoolean() ? in.readUTF() : null);
+            }
+            return rows;
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to read the forecast snapshot", e);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Replaces the snapshot with rows on a background thread.  Must be called on the main
+     * thread.
+     */
+    public static void writeAsync(Context context, final ForecastRow[] rows) {
+        if (rows == sWrittenRows) {
+            return;
+        }
+        sWrittenRows = rows;
+        // Worked out now, as the settings may have changed by the time the write happens
+        final String key = getKey(context);
+        final File dir = context.getFilesDir();
+        AsyncTask.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(dir, key, rows);
+            }
+        });
+    }
+
+    private static void write(File dir, String key, ForecastRow[] rows) {
+        File file = new File(dir, FILE_NAME);
+        if (rows.length == 0) {
+            file.delete();
+            return;
+        }
+        // Write a new file and rename it over the old one, so a reader never sees half a file
+        File tempFile = new File(dir, FILE_NAME + ".tmp");
+        DataOutputStream out = null;
+        try {
+            FileOutputStream fileOut = new FileOutputStream(tempFile);
+            out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(key);
+            out.writeInt(rows.length);
+            for (ForecastRow row : rows) {
+                out.writeLong(row.day.date);
+                out.writeInt(row.day.weatherId);
+                out.writeDouble(row.day.high);
+                out.writeDouble(row.day.low);
+                out.writeFloat(row.day.humidity);
+                out.writeFloat(row.day.pressure);
+                out.writeFloat(row.day.windSpeed);
+                out.writeFloat(row.day.degrees);
+                out.writeUTF(row.longDateText);
+                out.writeUTF(row.dateText);
+                out.writeUTF(row.description);
+                out.writeUTF(row.descriptionA11y);
+                out.writeUTF(row.highText);
+                out.writeUTF(row.highA11y);
+                out.writeUTF(row.lowText);
+                out.writeUTF(row.lowA11y);
+                out.writeBoolean(row.artUrl != null);
+                if (row.artUrl != null) {
+                    out.writeUTF(row.artUrl);
+                }
+            }
+            out.flush();
+            fileOut.getFD().sync();
+            out.close();
+            out = null;
+            if (!tempFile.renameTo(file)) {
+                Log.w(LOG_TAG, "Unable to replace " + file);
+            }
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to write the forecast snapshot", e);
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    /**
+     * Everything the formatted rows depend on besides the weather itself.
+     */
+    static String getKey(Context context) {
+        PreferenceSnapshot prefs = PreferenceSnapshot.get(context);
+        TimeZone timeZone = TimeZone.getDefault();
+        int today = DateMath.getJulianDay(System.currentTimeMillis(), timeZone);
+        return prefs.location + '\n' + prefs.isMetric + '\n' + prefs.artPack + '\n'
+                + Locale.getDefault() + '\n' + timeZone.getID() + '\n' + today;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.Choreographer;
+
+import java.util.Arrays;
+
+/**
+ * Measures how smoothly a RecyclerView scrolls.  From the moment it starts scrolling until it
+ * settles, the time between frames is recorded, along with how long each bind took.  When it
+ * settles, a summary is logged: the frame time percentiles, how many frames missed their
+ * vsync, the worst frames and how many binds were slow.
+ *
+ * Opt in with the track_forecast_frames bool resource.  Needs Jelly Bean for Choreographer, so
+ * callers must check the API level before creating one: on older versions this class can't
+ * even be loaded.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+public class FrameTracker extends RecyclerView.OnScrollListener
+        implements Choreographer.FrameCallback {
+    private static final String LOG_TAG = FrameTracker.class.getSimpleName();
+
+    private static final float DEFAULT_REFRESH_RATE = 60;
+    private static final int WORST_FRAME_COUNT = 3;
+    // Frames kept per scroll session; a fling is a few hundred
+    private static final int MAX_FRAMES = 2048;
+
+    private final String mName;
+    private final long mVsyncNanos;
+    // A bind taking more than a quarter of a frame leaves little for everything else
+    private final long mSlowBindNanos;
+    private final long[] mFrameNanos = new long[MAX_FRAMES];
+    private int mFrameCount;
+    private long mLastFrameTimeNanos;
+    private boolean mTracking;
+
+    private int mBindCount;
+    private int mSlowBindCount;
+    private long mWorstBindNanos;
+
+    /**
+     * @param refreshRate of the display the view is on, in frames per second, as
+     *                    Display.getRefreshRate gives it
+     */
+    public FrameTracker(String name, float refreshRate) {
+        mName = name;
+        mVsyncNanos = (long) (1000000000L
+                / (refreshRate > 0 ? refreshRate : DEFAULT_REFRESH_RATE));
+        mSlowBindNanos = mVsyncNanos / 4;
+    }
+
+    /**
+     * Stops tracking the scroll under way, if any, without logging it.  Call when the view
+     * goes away: it won't settle, so without this the frame callback would run forever.
+     */
+    public void stop() {
+        mTracking = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        if (newState != RecyclerView.SCROLL_STATE_IDLE && !mTracking) {
+            mTracking = true;
+            mFrameCount = 0;
+            mLastFrameTimeNanos = 0;
+            mBindCount = 0;
+            mSlowBindCount = 0;
+            mWorstBindNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        } else if (newState == RecyclerView.SCROLL_STATE_IDLE && mTracking) {
+            mTracking = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+            logSummary();
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mTracking) {
+            return;
+        }
+        if (mLastFrameTimeNanos != 0 && mFrameCount < MAX_FRAMES) {
+            mFrameNanos[mFrameCount++] = frameTimeNanos - mLastFrameTimeNanos;
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Records how long binding a row took.  Binds outside a scroll are ignored.
+     */
+    public void onBind(long bindNanos) {
+        if (!mTracking) {
+            return;
+        }
+        mBindCount++;
+        if (bindNanos > mSlowBindNanos) {
+            mSlowBindCount++;
+        }
+        mWorstBindNanos = Math.max(mWorstBindNanos, bindNanos);
+    }
+
+    private void logSummary() {
+        if (mFrameCount == 0) {
+            return;
+        }
+        long[] frames = Arrays.copyOf(mFrameNanos, mFrameCount);
+        Arrays.sort(frames);
+
+        // A frame that took n vsyncs missed n - 1 of them
+        int jankyFrames = 0;
+        long missedVsyncs = 0;
+        for (long frame : frames) {
+            // Half a millisecond of slack for vsync jitter
+            long vsyncs = (frame + mVsyncNanos / 2 - 500000) / mVsyncNanos;
+            if (vsyncs > 1) {
+                jankyFrames++;
+                missedVsyncs += vsyncs - 1;
+            }
+        }
+
+        StringBuilder worst = new StringBuilder();
+        for (int i = 0; i < Math.min(WORST_FRAME_COUNT, frames.length); i++) {
+            if (i > 0) {
+                worst.append(", ");
+            }
+            worst.append(toMillis(frames[frames.length - 1 - i]));
+        }
+
+        Log.i(LOG_TAG, mName + ": " + mFrameCount + " frames"
+                + ", p50 " + toMillis(percentile(frames, 50)) + "ms"
+                + ", p90 " + toMillis(percentile(frames, 90)) + "ms"
+                + ", p99 " + toMillis(percentile(frames, 99)) + "ms"
+                + ", janky " + jankyFrames + " (" + missedVsyncs + " missed vsyncs)"
+                + ", worst " + worst + "ms"
+                + "; " + mBindCount + " binds, " + mSlowBindCount + " slow"
+                + ", slowest " + toMillis(mWorstBindNanos) + "ms");
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[(sorted.length - 1) * percentile / 100];
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.1f", nanos / 1000000f);
+    }
+}
@@ -27,9 +27,12 @@ import android.util.SparseBooleanArray;
 import android.widget.AbsListView;
 import android.widget.Checkable;
 
+import java.util.HashMap;
+
 /**
- * The ItemChoiceManager class keeps track of which positions have been selected.  Note that it
- * doesn't take advantage of new adapter features to track changes in the underlying data.
+ * The ItemChoiceManager class keeps track of which positions have been selected.  It follows
+ * range inserts and removes, but only keeps selections across a full data set change when the
+ * adapter has stable ids, which it finds again through an index of positions by id.
  */
 public class ItemChoiceManager {
     private final String LOG_TAG = MainActivity.class.getSimpleName();
@@ -41,8 +44,21 @@ public class ItemChoiceManager {
         @Override
         public void onChanged() {
             super.onChanged();
+            mPositionsById = null;
             if (mAdapter != null && mAdapter.hasStableIds())
-                confirmCheckedPositionsById(mAdapter.getItemCount());
+                confirmCheckedPositionsById();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mPositionsById = null;
+            offsetCheckedPositions(positionStart, 0, itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mPositionsById = null;
+            offsetCheckedPositions(positionStart, itemCount, -itemCount);
         }
     };
 
@@ -53,14 +69,14 @@ public class ItemChoiceManager {
 
     public ItemChoiceManager(RecyclerView.Adapter adapter) {
         mAdapter = adapter;
+        mAdapter.registerAdapterDataObserver(mAdapterDataObserver);
     }
 
     /**
-     * How many positions in either direction we will search to try to
-     * find a checked item with a stable ID that moved position across
-     * a data set change. If the item isn't found it will be unselected.
+     * The position of every item by its stable ID, so a checked item can be found again
+     * however far it moved across a data set change.  Null until needed after each change.
      */
-    private static final int CHECK_POSITION_SEARCH_DISTANCE = 20;
+    private HashMap<Long, Integer> mPositionsById;
 
     /**
      * Running state of which positions are currently checked
@@ -154,36 +170,61 @@ public class ItemChoiceManager {
         mCheckedIdStates.clear();
     }
 
-    void confirmCheckedPositionsById(int oldItemCount) {
+    void confirmCheckedPositionsById() {
         // Clear out the positional check states, we'll rebuild it below from IDs.
         mCheckStates.clear();
 
-        for (int checkedIndex = 0; checkedIndex < mCheckedIdStates.size(); checkedIndex++) {
+        HashMap<Long, Integer> positionsById = getPositionsById();
+        for (int checkedIndex = mCheckedIdStates.size() - 1; checkedIndex >= 0; checkedIndex--) {
             final long id = mCheckedIdStates.keyAt(checkedIndex);
-            final int lastPos = mCheckedIdStates.valueAt(checkedIndex);
-
-            final long lastPosId = mAdapter.getItemId(lastPos);
-            if (id != lastPosId) {
-                // Look around to see if the ID is nearby. If not, uncheck it.
-                final int start = Math.max(0, lastPos - CHECK_POSITION_SEARCH_DISTANCE);
-                final int end = Math.min(lastPos + CHECK_POSITION_SEARCH_DISTANCE, oldItemCount);
-                boolean found = false;
-                for (int searchPos = start; searchPos < end; searchPos++) {
-                    final long searchId = mAdapter.getItemId(searchPos);
-                    if (id == searchId) {
-                        found = true;
-                        mCheckStates.put(searchPos, true);
-                        mCheckedIdStates.setValueAt(checkedIndex, searchPos);
-                        break;
-                    }
-                }
-
-                if (!found) {
-                    mCheckedIdStates.delete(id);
-                    checkedIndex--;
-                }
+            Integer position = positionsById.get(id);
+            if (position != null) {
+                mCheckStates.put(position, true);
+                mCheckedIdStates.setValueAt(checkedIndex, position);
             } else {
-                mCheckStates.put(lastPos, true);
+                // The item is gone, uncheck it
+                mCheckedIdStates.removeAt(checkedIndex);
+            }
+        }
+    }
+
+    /**
+     * Returns the position of every item by its id, building the index if the data has
+     * changed since it was last built.
+     */
+    HashMap<Long, Integer> getPositionsById() {
+        if (mPositionsById == null) {
+            int itemCount = mAdapter.getItemCount();
+            mPositionsById = new HashMap<Long, Integer>(itemCount * 2);
+            for (int position = 0; position < itemCount; position++) {
+                mPositionsById.put(mAdapter.getItemId(position), position);
+            }
+        }
+        return mPositionsById;
+    }
+
+    /**
+     * Keeps the checked positions on the same items across a range insert or remove.  Checked
+     * positions inside a removed range are unchecked.
+     */
+    void offsetCheckedPositions(int positionStart, int removedCount, int offset) {
+        SparseBooleanArray checkStates = new SparseBooleanArray();
+        for (int i = 0; i < mCheckStates.size(); i++) {
+            int position = mCheckStates.keyAt(i);
+            if (position < positionStart) {
+                checkStates.put(position, mCheckStates.valueAt(i));
+            } else if (position >= positionStart + removedCount) {
+                checkStates.put(position + offset, mCheckStates.valueAt(i));
+            }
+        }
+        mCheckStates = checkStates;
+
+        for (int i = mCheckedIdStates.size() - 1; i >= 0; i--) {
+            int position = mCheckedIdStates.valueAt(i);
+            if (position >= positionStart + removedCount) {
+                mCheckedIdStates.setValueAt(i, position + offset);
+            } else if (position >= positionStart) {
+                mCheckedIdStates.removeAt(i);
             }
         }
     }
@@ -27,18 +27,29 @@ import android.text.TextWatcher;
 import android.util.AttributeSet;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.widget.ArrayAdapter;
+import android.widget.AutoCompleteTextView;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.Filter;
 
+import com.example.android.sunshine.core.Gazetteer;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.GoogleApiAvailability;
 import com.google.android.gms.common.GooglePlayServicesNotAvailableException;
 import com.google.android.gms.common.GooglePlayServicesRepairableException;
 import com.google.android.gms.location.places.ui.PlacePicker;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class LocationEditTextPreference extends EditTextPreference {
     static final private int DEFAULT_MINIMUM_LOCATION_LENGTH = 2;
+    static final private int MAX_SUGGESTIONS = 8;
     private int mMinLength;
+    // Shown in the dialog in place of the preference's own EditText, which is kept in step
+    private final AutoCompleteTextView mAutoComplete;
 
     public LocationEditTextPreference(Context context, AttributeSet attrs) {
         super(context, attrs);
@@ -52,6 +63,28 @@ public class LocationEditTextPreference extends EditTextPreference {
             a.recycle();
         }
 
+        mAutoComplete = new AutoCompleteTextView(context, attrs);
+        mAutoComplete.setThreshold(1);
+        mAutoComplete.setAdapter(new CityAdapter(context));
+        mAutoComplete.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                // The preference saves what its own EditText holds
+                EditText editText = getEditText();
+                if (!editText.getText().toString().equals(s.toString())) {
+                    editText.setText(s);
+                }
+            }
+        });
+
         // Check to see if Google Play services is available. The Place Picker API is available
         // through Google Play services, so if this is false, we'll just carry on as though this
         // feature does not exist. If it is true, however, we can add a widget to our preference.
@@ -103,6 +136,24 @@ public class LocationEditTextPreference extends EditTextPreference {
         return view;
     }
 
+    @Override
+    protected void onAddEditTextToDialogView(View dialogView, EditText editText) {
+        super.onAddEditTextToDialogView(dialogView, editText);
+        // Swap in the completing view where the EditText was put
+        ViewParent container = editText.getParent();
+        if (container instanceof ViewGroup) {
+            ViewParent oldParent = mAutoComplete.getParent();
+            if (oldParent instanceof ViewGroup) {
+                ((ViewGroup) oldParent).removeView(mAutoComplete);
+            }
+            ((ViewGroup) container).removeView(editText);
+            ((ViewGroup) container).addView(mAutoComplete, ViewGroup.LayoutParams.MATCH_PARENT,
+                    ViewGroup.LayoutParams.WRAP_CONTENT);
+            mAutoComplete.setText(editText.getText());
+            mAutoComplete.setSelection(mAutoComplete.length());
+        }
+    }
+
     @Override
     protected void showDialog(Bundle state) {
         super.showDialog(state);
@@ -139,4 +190,51 @@ public class LocationEditTextPreference extends EditTextPreference {
             }
         });
     }
+
+    /**
+     * Suggests bundled cities starting with what has been typed.  Filtering happens on a
+     * background thread, which is also where the cities are read the first time.
+     */
+    private static class CityAdapter extends ArrayAdapter<String> {
+        private final Context mContext;
+
+        CityAdapter(Context context) {
+            super(context, android.R.layout.simple_dropdown_item_1line);
+            mContext = context.getApplicationContext();
+        }
+
+        @Override
+        public Filter getFilter() {
+            return mFilter;
+        }
+
+        private final Filter mFilter = new Filter() {
+            @Override
+            protected FilterResults performFiltering(CharSequence constraint) {
+                List<String> names = new ArrayList<String>();
+                Gazetteer gazetteer = Cities.get(mContext);
+                if (constraint != null && gazetteer != null) {
+                    for (Gazetteer.City city
+                            : gazetteer.complete(constraint.toString(), MAX_SUGGESTIONS)) {
+                        names.add(city.getDisplayName());
+                    }
+                }
+                FilterResults results = new FilterResults();
+                results.values = names;
+                results.count = names.size();
+                return results;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            protected void publishResults(CharSequence constraint, FilterResults results) {
+                setNotifyOnChange(false);
+                clear();
+                for (String name : (List<String>) results.values) {
+                    add(name);
+                }
+                notifyDataSetChanged();
+            }
+        };
+    }
 }
@@ -15,13 +15,16 @@
  */
 package com.example.android.sunshine.app;
 
+import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
 import android.support.v4.app.ActivityCompat;
 import android.support.v4.app.ActivityOptionsCompat;
+import android.support.v4.os.TraceCompat;
 import android.support.v4.util.Pair;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
@@ -45,9 +48,23 @@ public class MainActivity extends AppCompatActivity implements ForecastFragment.
 
     private boolean mTwoPane;
     private String mLocation;
+    private boolean mForecastShown;
+    private boolean mDestroyed;
+
+    // Queued with StartupTaskRunner, and cancelled from onDestroy so it doesn't keep this
+    // activity, or show a dialog on it, once a rotation has replaced it
+    private final Runnable mRegisterGcmTask = new Runnable() {
+        @Override
+        public void run() {
+            if (!mDestroyed && !isFinishing()) {
+                registerGcm();
+            }
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        TraceCompat.beginSection("MainActivity.onCreate");
         super.onCreate(savedInstanceState);
         mLocation = Utility.getPreferredLocation(this);
         Uri contentUri = getIntent() != null ? getIntent().getData() : null;
@@ -67,11 +84,12 @@ public class MainActivity extends AppCompatActivity implements ForecastFragment.
             // fragment transaction.
             if (savedInstanceState == null) {
                 DetailFragment fragment = new DetailFragment();
+                // Arguments even without a uri, as showDay keeps the picked day in them
+                Bundle args = new Bundle();
                 if (contentUri != null) {
-                    Bundle args = new Bundle();
                     args.putParcelable(DetailFragment.DETAIL_URI, contentUri);
-                    fragment.setArguments(args);
                 }
+                fragment.setArguments(args);
                 getSupportFragmentManager().beginTransaction()
                         .replace(R.id.weather_detail_container, fragment, DETAILFRAGMENT_TAG)
                         .commit();
@@ -89,8 +107,20 @@ public class MainActivity extends AppCompatActivity implements ForecastFragment.
                     WeatherContract.WeatherEntry.getDateFromUri(contentUri));
         }
 
-        SunshineSyncAdapter.initializeSyncAdapter(this);
+        // None of this is needed to show the forecast, so it waits until the forecast has been
+        // drawn.  See onForecastShown.
+        final Context context = getApplicationContext();
+        StartupTaskRunner.runInBackground("initializeSyncAdapter", new Runnable() {
+            @Override
+            public void run() {
+                SunshineSyncAdapter.initializeSyncAdapter(context);
+            }
+        });
+        StartupTaskRunner.runOnMainThread("registerGcm", mRegisterGcmTask);
+        TraceCompat.endSection();
+    }
 
+    private void registerGcm() {
         // If Google Play Services is up to date, we'll want to register GCM. If it is not, we'll
         // skip the registration and this device will not receive any downstream messages from
         // our fake server. Because weather alerts are not a core feature of the app, this should
@@ -99,12 +129,13 @@ public class MainActivity extends AppCompatActivity implements ForecastFragment.
             // Because this is the initial creation of the app, we'll want to be certain we have
             // a token. If we do not, then we will start the IntentService that will register this
             // application with GCM.
+            Context context = getApplicationContext();
             SharedPreferences sharedPreferences =
-                    PreferenceManager.getDefaultSharedPreferences(this);
+                    PreferenceManager.getDefaultSharedPreferences(context);
             boolean sentToken = sharedPreferences.getBoolean(SENT_TOKEN_TO_SERVER, false);
             if (!sentToken) {
-                Intent intent = new Intent(this, RegistrationIntentService.class);
-                startService(intent);
+                Intent intent = new Intent(context, RegistrationIntentService.class);
+                context.startService(intent);
             }
         }
     }
@@ -132,6 +163,19 @@ public class MainActivity extends AppCompatActivity implements ForecastFragment.
         return super.onOptionsItemSelected(item);
     }
 
+    @Override
+    protected void onPause() {
+        PreferenceStore.get(this).flush();
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        mDestroyed = true;
+        StartupTaskRunner.cancel(mRegisterGcmTask);
+        super.onDestroy();
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
@@ -151,23 +195,51 @@ public class MainActivity extends AppCompatActivity implements ForecastFragment.
     }
 
     @Override
-    public void onItemSelected(Uri contentUri, ForecastAdapter.ForecastAdapterViewHolder vh) {
+    public void onForecastShown() {
+        if (mForecastShown) {
+            return;
+        }
+        mForecastShown = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            // Logged by the system as "Fully drawn", which benchmark/coldstart.sh reads
+            reportFullyDrawn();
+        }
+        StartupTaskRunner.start();
+    }
+
+    @Override
+    public void onItemSelected(Uri contentUri, ForecastDay day,
+                               ForecastAdapter.ForecastAdapterViewHolder vh) {
         if (mTwoPane) {
-            // In two-pane mode, show the detail view in this activity by
-            // adding or replacing the detail fragment using a
-            // fragment transaction.
-            Bundle args = new Bundle();
-            args.putParcelable(DetailFragment.DETAIL_URI, contentUri);
+            // In two-pane mode, show the detail view in this activity.  The detail fragment
+            // already there is pointed at the new day; only without one is a fragment
+            // transaction needed.
+            DetailFragment fragment = (DetailFragment) getSupportFragmentManager()
+                    .findFragmentByTag(DETAILFRAGMENT_TAG);
+            if (fragment != null && fragment.getView() != null) {
+                fragment.showDay(contentUri, day);
 
-            DetailFragment fragment = new DetailFragment();
-            fragment.setArguments(args);
+                ForecastFragment ff = (ForecastFragment) getSupportFragmentManager()
+                        .findFragmentById(R.id.fragment_forecast);
+                if (ff != null && day != null) {
+                    fragment.prefetchDays(ff.getAdjacentDays(day.date));
+                }
+            } else {
+                Bundle args = new Bundle();
+                args.putParcelable(DetailFragment.DETAIL_URI, contentUri);
+                args.putParcelable(DetailFragment.DETAIL_DAY, day);
+
+                fragment = new DetailFragment();
+                fragment.setArguments(args);
 
-            getSupportFragmentManager().beginTransaction()
-                    .replace(R.id.weather_detail_container, fragment, DETAILFRAGMENT_TAG)
-                    .commit();
+                getSupportFragmentManager().beginTransaction()
+                        .replace(R.id.weather_detail_container, fragment, DETAILFRAGMENT_TAG)
+                        .commit();
+            }
         } else {
             Intent intent = new Intent(this, DetailActivity.class)
-                    .setData(contentUri);
+                    .setData(contentUri)
+                    .putExtra(DetailFragment.DETAIL_DAY, day);
 
             ActivityOptionsCompat activityOptions =
                     ActivityOptionsCompat.makeSceneTransitionAnimation(this,
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+
+import com.example.android.sunshine.app.sync.SunshineSyncAdapter;
+
+/**
+ * An immutable copy of the settings Utility reads on every row bind and every format, so
+ * reading one is a field read rather than a preference lookup plus resolving the key.
+ *
+ * There is one current snapshot per process.  It is replaced whenever the default shared
+ * preferences change.  The listener that does that is called on the main thread, in no
+ * particular order with the app's other listeners, so a listener that reads settings should
+ * call refresh first.  Preferences written off the main thread only reach the listener once
+ * the main thread gets to it, so writers there call refresh too.
+ *
+ * Values are read through PreferenceStore, so writes it is still holding are included.
+ */
+public class PreferenceSnapshot {
+
+    private static final Object sLock = new Object();
+    private static volatile PreferenceSnapshot sCurrent;
+
+    // SharedPreferences only keeps a weak reference to its listeners
+    private static SharedPreferences.OnSharedPreferenceChangeListener sListener;
+
+    public final String location;
+    public final boolean isMetric;
+    public final boolean usingLocalGraphics;
+    // The format of the art pack's urls, or the built in art pack's value
+    public final String artPack;
+    public final boolean isLocationLatLonAvailable;
+    public final float locationLatitude;
+    public final float locationLongitude;
+    @SunshineSyncAdapter.LocationStatus
+    public final int locationStatus;
+
+    @SuppressWarnings("ResourceType")
+    private PreferenceSnapshot(Context context, PreferenceStore prefs) {
+        location = prefs.getString(context.getString(R.string.pref_location_key),
+                context.getString(R.string.pref_location_default));
+
+        String metric = context.getString(R.string.pref_units_metric);
+        isMetric = prefs.getString(context.getString(R.string.pref_units_key), metric)
+                .equals(metric);
+
+        String sunshineArtPack = context.getString(R.string.pref_art_pack_sunshine);
+        artPack = prefs.getString(context.getString(R.string.pref_art_pack_key),
+                sunshineArtPack);
+        usingLocalGraphics = artPack.equals(sunshineArtPack);
+
+        String latitudeKey = context.getString(R.string.pref_location_latitude);
+        String longitudeKey = context.getString(R.string.pref_location_longitude);
+        isLocationLatLonAvailable = prefs.contains(latitudeKey) && prefs.contains(longitudeKey);
+        locationLatitude = prefs.getFloat(latitudeKey, Utility.DEFAULT_LATLONG);
+        locationLongitude = prefs.getFloat(longitudeKey, Utility.DEFAULT_LATLONG);
+
+        locationStatus = prefs.getInt(context.getString(R.string.pref_location_status_key),
+                SunshineSyncAdapter.LOCATION_STATUS_UNKNOWN);
+    }
+
+    /**
+     * Returns the current snapshot, reading the preferences the first time it is asked for.
+     */
+    public static PreferenceSnapshot get(Context context) {
+        PreferenceSnapshot snapshot = sCurrent;
+        if (snapshot == null) {
+            synchronized (sLock) {
+                snapshot = sCurrent;
+                if (snapshot == null) {
+                    snapshot = startListening(context.getApplicationContext());
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Rereads the preferences now, rather than when the change listener gets to them.
+     */
+    public static PreferenceSnapshot refresh(Context context) {
+        synchronized (sLock) {
+            if (sListener == null) {
+                return startListening(context.getApplicationContext());
+            }
+            Context appContext = context.getApplicationContext();
+            PreferenceSnapshot snapshot = new PreferenceSnapshot(appContext,
+                    PreferenceStore.get(appContext));
+            sCurrent = snapshot;
+            return snapshot;
+        }
+    }
+
+    // Must hold sLock
+    private static PreferenceSnapshot startListening(final Context appContext) {
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(appContext);
+        sListener = new SharedPreferences.OnSharedPreferenceChangeListener() {
+            @Override
+            public void onSharedPreferenceChanged(SharedPreferences sharedPreferences,
+                                                  String key) {
+                synchronized (sLock) {
+                    sCurrent = new PreferenceSnapshot(appContext,
+                            PreferenceStore.get(appContext));
+                }
+            }
+        };
+        prefs.registerOnSharedPreferenceChangeListener(sListener);
+        PreferenceSnapshot snapshot = new PreferenceSnapshot(appContext,
+                PreferenceStore.get(appContext));
+        sCurrent = snapshot;
+        return snapshot;
+    }
+}
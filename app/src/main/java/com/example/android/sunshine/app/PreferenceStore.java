@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.preference.PreferenceManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes to the default shared preferences that the app makes itself, as opposed to the ones
+ * the settings screen makes.  A write is visible to this store's getters, and so to
+ * PreferenceSnapshot, as soon as it is made, but only reaches SharedPreferences a moment
+ * later, together with whatever else was written in the meantime.  A sync that sets the
+ * location status and the last notification time then costs one disk write rather than two
+ * commits.
+ *
+ * Call flush where the process may be about to go away: when an activity pauses, and when a
+ * sync finishes.  It hands the pending writes to SharedPreferences.apply, which updates the
+ * preferences in memory straight away and writes them out on a background thread.  Change
+ * listeners are called as usual once the writes reach SharedPreferences.
+ */
+public class PreferenceStore {
+
+    // How long writes are held, so the ones after them can share their disk write
+    private static final long WRITE_DELAY_MILLIS = 1000;
+
+    // Stands for a removed key among the pending writes
+    private static final Object REMOVED = new Object();
+
+    private static PreferenceStore sInstance;
+
+    private final SharedPreferences mPrefs;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    // Guarded by itself
+    private final Map<String, Object> mPending = new HashMap<String, Object>();
+    private boolean mFlushScheduled;
+    // Held while flushing, so two flushes can't apply their writes out of order
+    private final Object mFlushLock = new Object();
+
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private PreferenceStore(Context appContext) {
+        mPrefs = PreferenceManager.getDefaultSharedPreferences(appContext);
+    }
+
+    public static synchronized PreferenceStore get(Context context) {
+        if (sInstance == null) {
+            sInstance = new PreferenceStore(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    public void putInt(String key, int value) {
+        put(key, value);
+    }
+
+    public void putLong(String key, long value) {
+        put(key, value);
+    }
+
+    public void putFloat(String key, float value) {
+        put(key, value);
+    }
+
+    public void putString(String key, String value) {
+        put(key, value);
+    }
+
+    public void remove(String key) {
+        put(key, REMOVED);
+    }
+
+    public int getInt(String key, int defValue) {
+        Object value = getPending(key);
+        if (value == null) {
+            return mPrefs.getInt(key, defValue);
+        }
+        return value == REMOVED ? defValue : (Integer) value;
+    }
+
+    public long getLong(String key, long defValue) {
+        Object value = getPending(key);
+        if (value == null) {
+            return mPrefs.getLong(key, defValue);
+        }
+        return value == REMOVED ? defValue : (Long) value;
+    }
+
+    public float getFloat(String key, float defValue) {
+        Object value = getPending(key);
+        if (value == null) {
+            return mPrefs.getFloat(key, defValue);
+        }
+        return value == REMOVED ? defValue : (Float) value;
+    }
+
+    public String getString(String key, String defValue) {
+        Object value = getPending(key);
+        if (value == null) {
+            return mPrefs.getString(key, defValue);
+        }
+        return value == REMOVED ? defValue : (String) value;
+    }
+
+    public boolean contains(String key) {
+        Object value = getPending(key);
+        if (value == null) {
+            return mPrefs.contains(key);
+        }
+        return value != REMOVED;
+    }
+
+    /**
+     * Hands every pending write to SharedPreferences now.  May be called on any thread.
+     */
+    public void flush() {
+        synchronized (mFlushLock) {
+            Map<String, Object> writes;
+            synchronized (mPending) {
+                mHandler.removeCallbacks(mFlushRunnable);
+                mFlushScheduled = false;
+                if (mPending.isEmpty()) {
+                    return;
+                }
+                writes = new HashMap<String, Object>(mPending);
+            }
+
+            // Applied without holding mPending, as listeners on the main thread are called
+            // from apply and may read from this store.  Until then the writes are still
+            // pending, so the getters go on returning them.
+            SharedPreferences.Editor editor = mPrefs.edit();
+            for (Map.Entry<String, Object> write : writes.entrySet()) {
+                String key = write.getKey();
+                Object value = write.getValue();
+                if (value == REMOVED) {
+                    editor.remove(key);
+                } else if (value instanceof Integer) {
+                    editor.putInt(key, (Integer) value);
+                } else if (value instanceof Long) {
+                    editor.putLong(key, (Long) value);
+                } else if (value instanceof Float) {
+                    editor.putFloat(key, (Float) value);
+                } else {
+                    editor.putString(key, (String) value);
+                }
+            }
+            editor.apply();
+
+            synchronized (mPending) {
+                // Leave anything written again since, it goes out with the next flush
+                for (Map.Entry<String, Object> write : writes.entrySet()) {
+                    if (mPending.get(write.getKey()) == write.getValue()) {
+                        mPending.remove(write.getKey());
+                    }
+                }
+            }
+        }
+    }
+
+    private void put(String key, Object value) {
+        synchronized (mPending) {
+            mPending.put(key, value);
+            if (!mFlushScheduled) {
+                mFlushScheduled = true;
+                mHandler.postDelayed(mFlushRunnable, WRITE_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private Object getPending(String key) {
+        synchronized (mPending) {
+            return mPending.get(key);
+        }
+    }
+}
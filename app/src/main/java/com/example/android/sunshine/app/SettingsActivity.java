@@ -29,8 +29,8 @@ import android.text.TextUtils;
 import android.util.Log;
 import android.view.View;
 import android.widget.ImageView;
-import com.example.android.sunshine.app.data.WeatherContract;
 import com.example.android.sunshine.app.sync.SunshineSyncAdapter;
+import com.example.android.sunshine.core.Gazetteer;
 import com.google.android.gms.location.places.Place;
 import com.google.android.gms.location.places.ui.PlacePicker;
 import com.google.android.gms.maps.model.LatLng;
@@ -87,6 +87,7 @@ public class SettingsActivity extends PreferenceActivity
     protected void onPause() {
         SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(this);
         sp.unregisterOnSharedPreferenceChangeListener(this);
+        PreferenceStore.get(this).flush();
         super.onPause();
     }
 
@@ -153,13 +154,22 @@ public class SettingsActivity extends PreferenceActivity
     // start our synchronization here
     @Override
     public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        // Our listener may run before the snapshot's
+        PreferenceSnapshot.refresh(this);
         if ( key.equals(getString(R.string.pref_location_key)) ) {
             // we've changed the location
-            // Wipe out any potential PlacePicker latlng values so that we can use this text entry.
-            SharedPreferences.Editor editor = sharedPreferences.edit();
-            editor.remove(getString(R.string.pref_location_latitude));
-            editor.remove(getString(R.string.pref_location_longitude));
-            editor.commit();
+            // A city we know the coordinates of is looked up by them, which the weather service
+            // can't misread.  Otherwise wipe out any potential PlacePicker latlng values so that
+            // we can use this text entry.
+            PreferenceStore store = PreferenceStore.get(this);
+            Gazetteer.City city = Cities.find(this, sharedPreferences.getString(key, ""));
+            if (city != null) {
+                store.putFloat(getString(R.string.pref_location_latitude), city.latitude);
+                store.putFloat(getString(R.string.pref_location_longitude), city.longitude);
+            } else {
+                store.remove(getString(R.string.pref_location_latitude));
+                store.remove(getString(R.string.pref_location_longitude));
+            }
 
             // Remove attributions for our any PlacePicker locations.
             if (mAttribution != null) {
@@ -169,15 +179,17 @@ public class SettingsActivity extends PreferenceActivity
             Utility.resetLocationStatus(this);
             SunshineSyncAdapter.syncImmediately(this);
         } else if ( key.equals(getString(R.string.pref_units_key)) ) {
-            // units have changed. update lists of weather entries accordingly
-            getContentResolver().notifyChange(WeatherContract.WeatherEntry.CONTENT_URI, null);
+            // units have changed.  The stored data is in Celsius either way, so there's nothing
+            // to query again; the forecast and detail views format what they have for the new
+            // units when they resume.
         } else if ( key.equals(getString(R.string.pref_location_status_key)) ) {
             // our location status has changed.  Update the summary accordingly
             Preference locationPreference = findPreference(getString(R.string.pref_location_key));
             bindPreferenceSummaryToValue(locationPreference);
         } else if ( key.equals(getString(R.string.pref_art_pack_key)) ) {
-            // art pack have changed. update lists of weather entries accordingly
-            getContentResolver().notifyChange(WeatherContract.WeatherEntry.CONTENT_URI, null);
+            // art pack have changed. update lists of weather entries accordingly, once the new
+            // pack's images are in
+            ArtPrefetcher.switchArtPack(this);
         }
     }
 
@@ -203,19 +215,20 @@ public class SettingsActivity extends PreferenceActivity
                     address = String.format("(%.2f, %.2f)",latLong.latitude, latLong.longitude);
                 }
 
-                SharedPreferences sharedPreferences =
-                        PreferenceManager.getDefaultSharedPreferences(this);
-                SharedPreferences.Editor editor = sharedPreferences.edit();
-                editor.putString(getString(R.string.pref_location_key), address);
+                PreferenceStore store = PreferenceStore.get(this);
+                store.putString(getString(R.string.pref_location_key), address);
 
                 // Also store the latitude and longitude so that we can use these to get a precise
                 // result from our weather service. We cannot expect the weather service to
                 // understand addresses that Google formats.
-                editor.putFloat(getString(R.string.pref_location_latitude),
+                store.putFloat(getString(R.string.pref_location_latitude),
                         (float) latLong.latitude);
-                editor.putFloat(getString(R.string.pref_location_longitude),
+                store.putFloat(getString(R.string.pref_location_longitude),
                         (float) latLong.longitude);
-                editor.commit();
+                // Now rather than after the delay, while our listener is still unregistered.
+                // Otherwise it would see the location change and clear the latitude and
+                // longitude again.
+                store.flush();
 
                 // Tell the SyncAdapter that we've changed the location, so that we can update
                 // our UI with new values. We need to do this manually because we are responding
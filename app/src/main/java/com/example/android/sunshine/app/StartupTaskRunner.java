@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.support.v4.os.TraceCompat;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Holds back work that launching the app needs done, but not before the forecast is on
+ * screen.  MainActivity calls start once the first forecast rows have been drawn; until then
+ * tasks are queued, and after it they run straight away.  If start isn't called within
+ * START_TIMEOUT_MILLIS of the first task being queued, the tasks run anyway.
+ *
+ * Tasks run either on the main thread or, in the order they were queued, on one background
+ * thread.  Each runs in a trace section named after it.
+ */
+public class StartupTaskRunner {
+    private static final String LOG_TAG = StartupTaskRunner.class.getSimpleName();
+
+    private static final long START_TIMEOUT_MILLIS = 5000;
+
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    private static final ExecutorService sBackgroundExecutor =
+            Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    return new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "StartupTasks");
+                }
+            });
+
+    private static final Runnable sStartRunnable = new Runnable() {
+        @Override
+        public void run() {
+            start();
+        }
+    };
+
+    // Only touched on the main thread
+    private static final List<Task> sPending = new ArrayList<Task>();
+    private static boolean sStarted;
+
+    private static class Task implements Runnable {
+        final String name;
+        final Runnable runnable;
+        final boolean inBackground;
+
+        Task(String name, Runnable runnable, boolean inBackground) {
+            this.name = name;
+            this.runnable = runnable;
+            this.inBackground = inBackground;
+        }
+
+        @Override
+        public void run() {
+            long startMillis = SystemClock.elapsedRealtime();
+            TraceCompat.beginSection(name);
+            try {
+                runnable.run();
+            } finally {
+                TraceCompat.endSection();
+            }
+            if (BuildConfig.DEBUG) {
+                Log.d(LOG_TAG, name + " took "
+                        + (SystemClock.elapsedRealtime() - startMillis) + "ms");
+            }
+        }
+    }
+
+    /**
+     * Queues a task for the main thread.  Must be called on the main thread.
+     */
+    public static void runOnMainThread(String name, Runnable runnable) {
+        enqueue(new Task(name, runnable, false));
+    }
+
+    /**
+     * Queues a task for the background thread.  Must be called on the main thread.
+     */
+    public static void runInBackground(String name, Runnable runnable) {
+        enqueue(new Task(name, runnable, true));
+    }
+
+    /**
+     * Drops the queued tasks that would run this runnable, so that whatever it holds can be
+     * let go, an Activity being destroyed say.  A task already handed on still runs, so the
+     * runnable should also check it is still wanted.  Must be called on the main thread.
+     */
+    public static void cancel(Runnable runnable) {
+        for (int i = sPending.size() - 1; i >= 0; i--) {
+            if (sPending.get(i).runnable == runnable) {
+                sPending.remove(i);
+            }
+        }
+        if (sPending.isEmpty() && !sStarted) {
+            sMainHandler.removeCallbacks(sStartRunnable);
+        }
+    }
+
+    /**
+     * Runs the queued tasks, and lets any queued later run straight away.  Must be called on
+     * the main thread.
+     */
+    public static void start() {
+        if (sStarted) {
+            return;
+        }
+        sStarted = true;
+        sMainHandler.removeCallbacks(sStartRunnable);
+        for (Task task : sPending) {
+            dispatch(task);
+        }
+        sPending.clear();
+    }
+
+    private static void enqueue(Task task) {
+        if (sStarted) {
+            dispatch(task);
+            return;
+        }
+        if (sPending.isEmpty()) {
+            sMainHandler.postDelayed(sStartRunnable, START_TIMEOUT_MILLIS);
+        }
+        sPending.add(task);
+    }
+
+    private static void dispatch(Task task) {
+        if (task.inBackground) {
+            sBackgroundExecutor.execute(task);
+        } else {
+            // Posted, so a long queue doesn't hold up the frame start was called from
+            sMainHandler.post(task);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.android.sunshine.core.DateMath;
+
+import java.util.TimeZone;
+
+/**
+ * What each surface outside the app last showed, so a data update that changes nothing it
+ * shows can be skipped.  Every sync sends ACTION_DATA_UPDATED, but most of them only refresh
+ * values that are the same as before.
+ *
+ * A surface builds a fingerprint from everything its output depends on, checks it with
+ * isUnchanged before doing any work, and records it with markPublished once its output has
+ * gone out.  Fingerprints outlive the process, as the outputs do.  How many updates each
+ * surface skipped and performed is counted alongside, and logged in debug builds.
+ */
+public class UpdateFingerprints {
+    private static final String LOG_TAG = UpdateFingerprints.class.getSimpleName();
+
+    public static final String TODAY_WIDGET = "today_widget";
+    public static final String DETAIL_WIDGET = "detail_widget";
+    public static final String MUZEI = "muzei";
+    public static final String WEARABLE = "wearable";
+
+    private static final String PREFS_NAME = "update_fingerprints";
+    private static final String SKIPPED_SUFFIX = ".skipped";
+    private static final String PERFORMED_SUFFIX = ".performed";
+
+    /**
+     * Today, for the fingerprints of surfaces that show dates or only today's weather.
+     */
+    public static int getToday() {
+        return DateMath.getJulianDay(System.currentTimeMillis(), TimeZone.getDefault());
+    }
+
+    /**
+     * Whether the surface last published this fingerprint.  Counts a skipped update if it did.
+     */
+    public static synchronized boolean isUnchanged(Context context, String surface,
+                                                   String fingerprint) {
+        SharedPreferences prefs = getPrefs(context);
+        if (!fingerprint.equals(prefs.getString(surface, null))) {
+            return false;
+        }
+        int skipped = prefs.getInt(surface + SKIPPED_SUFFIX, 0) + 1;
+        prefs.edit().putInt(surface + SKIPPED_SUFFIX, skipped).apply();
+        log(surface, skipped, prefs.getInt(surface + PERFORMED_SUFFIX, 0));
+        return true;
+    }
+
+    /**
+     * Records that the surface has published the output of this fingerprint.
+     */
+    public static synchronized void markPublished(Context context, String surface,
+                                                  String fingerprint) {
+        SharedPreferences prefs = getPrefs(context);
+        int performed = prefs.getInt(surface + PERFORMED_SUFFIX, 0) + 1;
+        prefs.edit()
+                .putString(surface, fingerprint)
+                .putInt(surface + PERFORMED_SUFFIX, performed)
+                .apply();
+        log(surface, prefs.getInt(surface + SKIPPED_SUFFIX, 0), performed);
+    }
+
+    /**
+     * Forgets what the surface last published, so its next update is performed.
+     */
+    public static synchronized void forget(Context context, String surface) {
+        getPrefs(context).edit().remove(surface).apply();
+    }
+
+    public static synchronized int getSkippedCount(Context context, String surface) {
+        return getPrefs(context).getInt(surface + SKIPPED_SUFFIX, 0);
+    }
+
+    public static synchronized int getPerformedCount(Context context, String surface) {
+        return getPrefs(context).getInt(surface + PERFORMED_SUFFIX, 0);
+    }
+
+    private static SharedPreferences getPrefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    private static void log(String surface, int skipped, int performed) {
+        if (BuildConfig.DEBUG) {
+            Log.d(LOG_TAG, surface + ": " + skipped + " updates skipped, " + performed
+                    + " performed");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app.data;
+
+/**
+ * Geohash encoding used to index the location table spatially.  A geohash interleaves the bits
+ * of the longitude and latitude into a base 32 string, so that locations sharing a prefix are
+ * in the same grid cell.  Looking up a cell and its eight neighbours by prefix is enough to find
+ * every cached location within one cell size of a point.
+ */
+public class GeoHash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    // The longest hash we store.  At 9 characters a cell is roughly 5m x 5m.
+    public static final int MAX_PRECISION = 9;
+
+    private static final double EARTH_RADIUS_METERS = 6371008.8;
+    private static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS_METERS / 180;
+
+    /**
+     * Encodes a coordinate into a geohash of the given length.
+     *
+     * @param latitude latitude in degrees, -90 to 90
+     * @param longitude longitude in degrees, -180 to 180
+     * @param precision number of characters in the returned hash
+     * @return the geohash of the cell containing the coordinate
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Returns the hashes of the cell containing the coordinate and of the eight cells around it.
+     * Cells wrap around the antimeridian and are clamped at the poles, so the result may
+     * contain duplicates near the poles.
+     */
+    public static String[] cellAndNeighbours(double latitude, double longitude, int precision) {
+        double cellHeight = cellHeightDegrees(precision);
+        double cellWidth = cellWidthDegrees(precision);
+        String[] hashes = new String[9];
+        int i = 0;
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            for (int dLon = -1; dLon <= 1; dLon++) {
+                double lat = Math.max(-90, Math.min(90, latitude + dLat * cellHeight));
+                double lon = longitude + dLon * cellWidth;
+                if (lon < -180) lon += 360;
+                if (lon >= 180) lon -= 360;
+                hashes[i++] = encode(lat, lon, precision);
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Picks the longest hash whose cells are still at least radiusMeters across at the given
+     * latitude.  Searching that cell and its neighbours then covers the whole radius.
+     */
+    public static int precisionForRadius(double radiusMeters, double latitude) {
+        double metersPerLonDegree = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        for (int precision = MAX_PRECISION; precision > 1; precision--) {
+            double height = cellHeightDegrees(precision) * METERS_PER_DEGREE;
+            double width = cellWidthDegrees(precision) * metersPerLonDegree;
+            if (height >= radiusMeters && width >= radiusMeters) {
+                return precision;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Great-circle distance between two coordinates, using the haversine formula.
+     *
+     * @return the distance in meters
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * The smallest string that sorts after every hash starting with prefix.  Used to turn a
+     * prefix match into a range query that SQLite can answer from the geohash index.
+     */
+    public static String prefixUpperBound(String prefix) {
+        // '{' is the character right after 'z', the last character of the alphabet
+        return prefix + '{';
+    }
+
+    private static double cellHeightDegrees(int precision) {
+        int latBits = (precision * 5) / 2;
+        return 180.0 / (1L << latBits);
+    }
+
+    private static double cellWidthDegrees(int precision) {
+        int lonBits = (precision * 5 + 1) / 2;
+        return 360.0 / (1L << lonBits);
+    }
+}
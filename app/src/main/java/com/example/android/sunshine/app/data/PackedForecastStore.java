@@ -0,0 +1,728 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.SQLException;
+import android.util.Log;
+
+import com.example.android.sunshine.app.data.WeatherContract.LocationEntry;
+import com.example.android.sunshine.app.data.WeatherContract.WeatherEntry;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Alternative storage for the weather table that keeps each location's forecast in a single
+ * file of fixed-width binary records, instead of one SQLite row per day.  Descriptions are
+ * stored as a one byte code into the list of condition groups OpenWeatherMap reports.
+ *
+ * Locations stay in SQLite; the provider resolves a location setting to its row id and asks
+ * this store for that id's records.  Selected with the use_packed_forecast_store bool resource.
+ */
+public class PackedForecastStore {
+    private static final String LOG_TAG = PackedForecastStore.class.getSimpleName();
+
+    // "SUNF"
+    private static final int MAGIC = 0x53554e46;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 4;
+
+    // date, weather id, description code, then min, max, humidity, pressure, wind and degrees
+    static final int RECORD_SIZE = 8 + 2 + 1 + 6 * 4;
+
+    // Directory under the app's files directory the provider keeps the store in
+    public static final String DIRECTORY_NAME = "forecasts";
+
+    private static final String FILE_SUFFIX = ".bin";
+
+    // The "main" field OpenWeatherMap reports for each condition group.  Index 0 means the
+    // description was something else, and is derived from the weather id when read back.
+    private static final String[] DESCRIPTIONS = {
+            null, "Thunderstorm", "Drizzle", "Rain", "Snow", "Mist", "Smoke", "Haze", "Dust",
+            "Fog", "Sand", "Ash", "Squall", "Tornado", "Clear", "Clouds", "Extreme", "Additional"
+    };
+
+    // Ids for records are built from the location id and the day, so they stay stable across
+    // syncs.  No location will ever have this many days.
+    private static final long DAYS_PER_LOCATION_ID = 100000;
+    private static final long DAY_IN_MILLIS = 1000 * 60 * 60 * 24;
+
+    private final File mDirectory;
+
+    /**
+     * One day of forecast, as stored on disk.
+     */
+    public static final class Record {
+        public final long date;
+        public final int weatherId;
+        public final byte descriptionCode;
+        public final float minTemp;
+        public final float maxTemp;
+        public final float humidity;
+        public final float pressure;
+        public final float windSpeed;
+        public final float degrees;
+
+        public Record(long date, int weatherId, String description, float minTemp, float maxTemp,
+                      float humidity, float pressure, float windSpeed, float degrees) {
+            this(date, weatherId, encodeDescription(description), minTemp, maxTemp, humidity,
+                    pressure, windSpeed, degrees);
+        }
+
+        private Record(long date, int weatherId, byte descriptionCode, float minTemp,
+                       float maxTemp, float humidity, float pressure, float windSpeed,
+                       float degrees) {
+            this.date = date;
+            this.weatherId = weatherId;
+            this.descriptionCode = descriptionCode;
+            this.minTemp = minTemp;
+            this.maxTemp = maxTemp;
+            this.humidity = humidity;
+            this.pressure = pressure;
+            this.windSpeed = windSpeed;
+            this.degrees = degrees;
+        }
+
+        /**
+         * Builds a record from the weather columns of values.  The date must already be
+         * normalized.
+         *
+         * @throws SQLException if a column the weather table requires is missing, as SQLite's
+         * NOT NULL constraints would
+         */
+        public static Record fromValues(ContentValues values) {
+            return new Record(
+                    getRequiredLong(values, WeatherEntry.COLUMN_DATE),
+                    (int) getRequiredLong(values, WeatherEntry.COLUMN_WEATHER_ID),
+                    getRequiredString(values, WeatherEntry.COLUMN_SHORT_DESC),
+                    getRequiredFloat(values, WeatherEntry.COLUMN_MIN_TEMP),
+                    getRequiredFloat(values, WeatherEntry.COLUMN_MAX_TEMP),
+                    getRequiredFloat(values, WeatherEntry.COLUMN_HUMIDITY),
+                    getRequiredFloat(values, WeatherEntry.COLUMN_PRESSURE),
+                    getRequiredFloat(values, WeatherEntry.COLUMN_WIND_SPEED),
+                    getRequiredFloat(values, WeatherEntry.COLUMN_DEGREES));
+        }
+
+        private static long getRequiredLong(ContentValues values, String column) {
+            Long value = values.getAsLong(column);
+            if (value == null) {
+                throw notNullFailed(column);
+            }
+            return value;
+        }
+
+        private static float getRequiredFloat(ContentValues values, String column) {
+            Float value = values.getAsFloat(column);
+            if (value == null) {
+                throw notNullFailed(column);
+            }
+            return value;
+        }
+
+        private static String getRequiredString(ContentValues values, String column) {
+            String value = values.getAsString(column);
+            if (value == null) {
+                throw notNullFailed(column);
+            }
+            return value;
+        }
+
+        ContentValues toValues(long locationId) {
+            ContentValues values = new ContentValues();
+            values.put(WeatherEntry.COLUMN_LOC_KEY, locationId);
+            values.put(WeatherEntry.COLUMN_DATE, date);
+            values.put(WeatherEntry.COLUMN_WEATHER_ID, weatherId);
+            values.put(WeatherEntry.COLUMN_SHORT_DESC, getDescription());
+            values.put(WeatherEntry.COLUMN_MIN_TEMP, minTemp);
+            values.put(WeatherEntry.COLUMN_MAX_TEMP, maxTemp);
+            values.put(WeatherEntry.COLUMN_HUMIDITY, humidity);
+            values.put(WeatherEntry.COLUMN_PRESSURE, pressure);
+            values.put(WeatherEntry.COLUMN_WIND_SPEED, windSpeed);
+            values.put(WeatherEntry.COLUMN_DEGREES, degrees);
+            return values;
+        }
+
+        public String getDescription() {
+            if (descriptionCode > 0 && descriptionCode < DESCRIPTIONS.length) {
+                return DESCRIPTIONS[descriptionCode];
+            }
+            return describeWeatherId(weatherId);
+        }
+    }
+
+    /**
+     * The location columns a joined query can ask for, for the location being queried.
+     */
+    public static final class LocationInfo {
+        final long id;
+        final String locationSetting;
+        final String cityName;
+        final double latitude;
+        final double longitude;
+
+        public LocationInfo(long id, String locationSetting, String cityName, double latitude,
+                            double longitude) {
+            this.id = id;
+            this.locationSetting = locationSetting;
+            this.cityName = cityName;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    public PackedForecastStore(File directory) {
+        mDirectory = directory;
+    }
+
+    /**
+     * Returns the records of a location, sorted by date.
+     */
+    public synchronized Record[] read(long locationId) {
+        File file = fileFor(locationId);
+        if (!file.exists()) {
+            return new Record[0];
+        }
+        byte[] bytes = new byte[(int) file.length()];
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = in.read(bytes, offset, bytes.length - offset);
+                if (read < 0) break;
+                offset += read;
+            }
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Error reading " + file, e);
+            return new Record[0];
+        } finally {
+            closeQuietly(in);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER_SIZE || buffer.getInt() != MAGIC
+                || buffer.getInt() != FORMAT_VERSION) {
+            // Only a cache, so throw away anything we don't understand
+            Log.w(LOG_TAG, "Discarding unreadable forecast file " + file);
+            file.delete();
+            return new Record[0];
+        }
+        int count = Math.min(buffer.getInt(), (bytes.length - HEADER_SIZE) / RECORD_SIZE);
+        Record[] records = new Record[count];
+        for (int i = 0; i < count; i++) {
+            records[i] = new Record(buffer.getLong(), buffer.getShort(), buffer.get(),
+                    buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat(),
+                    buffer.getFloat(), buffer.getFloat());
+        }
+        return records;
+    }
+
+    /**
+     * Adds records to a location, replacing any existing record for the same date.
+     */
+    public synchronized void put(long locationId, Collection<Record> records) {
+        TreeMap<Long, Record> merged = new TreeMap<Long, Record>();
+        for (Record record : read(locationId)) {
+            merged.put(record.date, record);
+        }
+        for (Record record : records) {
+            merged.put(record.date, record);
+        }
+        write(locationId, merged.values());
+    }
+
+    /**
+     * Deletes every record matching selection.
+     *
+     * @return the number of records deleted
+     */
+    public synchronized int delete(String selection, String[] selectionArgs) {
+        Selection filter = Selection.parse(selection, selectionArgs);
+        int deleted = 0;
+        for (long locationId : locationIds()) {
+            Record[] records = read(locationId);
+            List<Record> kept = new ArrayList<Record>(records.length);
+            for (Record record : records) {
+                if (!filter.matches(locationId, record)) {
+                    kept.add(record);
+                }
+            }
+            if (kept.size() != records.length) {
+                deleted += records.length - kept.size();
+                if (kept.isEmpty()) {
+                    fileFor(locationId).delete();
+                } else {
+                    write(locationId, kept);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Applies values to every record matching selection.  A record given a date another record
+     * of its location already has replaces it, as does one moved to another location.
+     *
+     * @return the number of records updated
+     */
+    public synchronized int update(ContentValues values, String selection,
+                                   String[] selectionArgs) {
+        if (values.containsKey(WeatherEntry._ID)) {
+            throw new SQLException("The packed forecast store derives ids, they can't be set");
+        }
+        Long newLocationId = null;
+        if (values.containsKey(WeatherEntry.COLUMN_LOC_KEY)) {
+            newLocationId = values.getAsLong(WeatherEntry.COLUMN_LOC_KEY);
+            if (newLocationId == null) {
+                throw notNullFailed(WeatherEntry.COLUMN_LOC_KEY);
+            }
+        }
+        Selection filter = Selection.parse(selection, selectionArgs);
+        int updated = 0;
+        // Written once every location has been read, so none is updated twice
+        List<Record> moved = new ArrayList<Record>();
+        for (long locationId : locationIds()) {
+            TreeMap<Long, Record> kept = new TreeMap<Long, Record>();
+            boolean changed = false;
+            for (Record record : read(locationId)) {
+                if (!filter.matches(locationId, record)) {
+                    kept.put(record.date, record);
+                    continue;
+                }
+                ContentValues recordValues = record.toValues(locationId);
+                recordValues.putAll(values);
+                record = Record.fromValues(recordValues);
+                changed = true;
+                updated++;
+                if (newLocationId == null || newLocationId == locationId) {
+                    kept.put(record.date, record);
+                } else {
+                    moved.add(record);
+                }
+            }
+            if (changed) {
+                if (kept.isEmpty()) {
+                    fileFor(locationId).delete();
+                } else {
+                    write(locationId, kept.values());
+                }
+            }
+        }
+        if (!moved.isEmpty()) {
+            put(newLocationId, moved);
+        }
+        return updated;
+    }
+
+    /**
+     * Drops the forecasts of every location not in locationIds.  SQLite may reuse the id of a
+     * deleted location, so this has to run whenever locations are deleted.
+     */
+    public synchronized void retainLocations(Collection<Long> locationIds) {
+        for (long locationId : locationIds()) {
+            if (!locationIds.contains(locationId)) {
+                fileFor(locationId).delete();
+            }
+        }
+    }
+
+    /**
+     * Total bytes used on disk.
+     */
+    public synchronized long sizeOnDisk() {
+        long size = 0;
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Builds a cursor over one location's records, as the join of the weather and location
+     * tables would return it.
+     *
+     * @param startDate only records on or after this date, or 0 for all of them
+     * @param exactDate only the record on this date, or 0 for all of them
+     */
+    public Cursor query(LocationInfo location, String[] projection, long startDate,
+                        long exactDate, String sortOrder) {
+        String[] columns = projection != null ? stripTableNames(projection) : JOINED_COLUMNS;
+        MatrixCursor cursor = new MatrixCursor(columns);
+        if (location == null) {
+            return cursor;
+        }
+        Record[] records = read(location.id);
+        boolean descending = isDescending(sortOrder);
+        for (int i = 0; i < records.length; i++) {
+            Record record = records[descending ? records.length - 1 - i : i];
+            if (record.date < startDate || (exactDate != 0 && record.date != exactDate)) {
+                continue;
+            }
+            cursor.addRow(rowFor(columns, location.id, location, record));
+        }
+        return cursor;
+    }
+
+    /**
+     * Builds a cursor over the records of every location matching selection, as a query of
+     * the weather table alone would return it.
+     */
+    public synchronized Cursor query(String[] projection, String selection,
+                                     String[] selectionArgs, String sortOrder) {
+        String[] columns = projection != null ? stripTableNames(projection) : WEATHER_COLUMNS;
+        Selection filter = Selection.parse(selection, selectionArgs);
+        TreeMap<Long, Object[]> rows = new TreeMap<Long, Object[]>();
+        for (long locationId : locationIds()) {
+            for (Record record : read(locationId)) {
+                if (filter.matches(locationId, record)) {
+                    rows.put(rowId(locationId, record), rowFor(columns, locationId, null, record));
+                }
+            }
+        }
+        MatrixCursor cursor = new MatrixCursor(columns, rows.size());
+        for (Object[] row : isDescending(sortOrder)
+                ? rows.descendingMap().values() : rows.values()) {
+            cursor.addRow(row);
+        }
+        return cursor;
+    }
+
+    /**
+     * The id a record is exposed with in cursors and URIs.
+     */
+    public static long rowId(long locationId, Record record) {
+        return locationId * DAYS_PER_LOCATION_ID + record.date / DAY_IN_MILLIS;
+    }
+
+    private static final String[] WEATHER_COLUMNS = {
+            WeatherEntry._ID,
+            WeatherEntry.COLUMN_LOC_KEY,
+            WeatherEntry.COLUMN_DATE,
+            WeatherEntry.COLUMN_SHORT_DESC,
+            WeatherEntry.COLUMN_WEATHER_ID,
+            WeatherEntry.COLUMN_MIN_TEMP,
+            WeatherEntry.COLUMN_MAX_TEMP,
+            WeatherEntry.COLUMN_HUMIDITY,
+            WeatherEntry.COLUMN_PRESSURE,
+            WeatherEntry.COLUMN_WIND_SPEED,
+            WeatherEntry.COLUMN_DEGREES
+    };
+
+    private static final String[] JOINED_COLUMNS = {
+            WeatherEntry._ID,
+            WeatherEntry.COLUMN_LOC_KEY,
+            WeatherEntry.COLUMN_DATE,
+            WeatherEntry.COLUMN_SHORT_DESC,
+            WeatherEntry.COLUMN_WEATHER_ID,
+            WeatherEntry.COLUMN_MIN_TEMP,
+            WeatherEntry.COLUMN_MAX_TEMP,
+            WeatherEntry.COLUMN_HUMIDITY,
+            WeatherEntry.COLUMN_PRESSURE,
+            WeatherEntry.COLUMN_WIND_SPEED,
+            WeatherEntry.COLUMN_DEGREES,
+            LocationEntry.COLUMN_LOCATION_SETTING,
+            LocationEntry.COLUMN_CITY_NAME,
+            LocationEntry.COLUMN_COORD_LAT,
+            LocationEntry.COLUMN_COORD_LONG
+    };
+
+    private static Object[] rowFor(String[] columns, long locationId, LocationInfo location,
+                                   Record record) {
+        Object[] row = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            String column = columns[i];
+            if (WeatherEntry._ID.equals(column)) {
+                row[i] = rowId(locationId, record);
+            } else if (WeatherEntry.COLUMN_LOC_KEY.equals(column)) {
+                row[i] = locationId;
+            } else if (WeatherEntry.COLUMN_DATE.equals(column)) {
+                row[i] = record.date;
+            } else if (WeatherEntry.COLUMN_SHORT_DESC.equals(column)) {
+                row[i] = record.getDescription();
+            } else if (WeatherEntry.COLUMN_WEATHER_ID.equals(column)) {
+                row[i] = record.weatherId;
+            } else if (WeatherEntry.COLUMN_MIN_TEMP.equals(column)) {
+                row[i] = record.minTemp;
+            } else if (WeatherEntry.COLUMN_MAX_TEMP.equals(column)) {
+                row[i] = record.maxTemp;
+            } else if (WeatherEntry.COLUMN_HUMIDITY.equals(column)) {
+                row[i] = record.humidity;
+            } else if (WeatherEntry.COLUMN_PRESSURE.equals(column)) {
+                row[i] = record.pressure;
+            } else if (WeatherEntry.COLUMN_WIND_SPEED.equals(column)) {
+                row[i] = record.windSpeed;
+            } else if (WeatherEntry.COLUMN_DEGREES.equals(column)) {
+                row[i] = record.degrees;
+            } else if (location != null
+                    && LocationEntry.COLUMN_LOCATION_SETTING.equals(column)) {
+                row[i] = location.locationSetting;
+            } else if (location != null && LocationEntry.COLUMN_CITY_NAME.equals(column)) {
+                row[i] = location.cityName;
+            } else if (location != null && LocationEntry.COLUMN_COORD_LAT.equals(column)) {
+                row[i] = location.latitude;
+            } else if (location != null && LocationEntry.COLUMN_COORD_LONG.equals(column)) {
+                row[i] = location.longitude;
+            } else {
+                throw new IllegalArgumentException("Unknown column " + column);
+            }
+        }
+        return row;
+    }
+
+    private void write(long locationId, Collection<Record> records) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + records.size() * RECORD_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(records.size());
+        for (Record record : records) {
+            buffer.putLong(record.date);
+            buffer.putShort((short) record.weatherId);
+            buffer.put(record.descriptionCode);
+            buffer.putFloat(record.minTemp);
+            buffer.putFloat(record.maxTemp);
+            buffer.putFloat(record.humidity);
+            buffer.putFloat(record.pressure);
+            buffer.putFloat(record.windSpeed);
+            buffer.putFloat(record.degrees);
+        }
+
+        // Write a new file and rename it over the old one, so a reader never sees half a file
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            throw new SQLException("Unable to create " + mDirectory);
+        }
+        File file = fileFor(locationId);
+        File tempFile = new File(mDirectory, file.getName() + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(tempFile);
+            out.write(buffer.array());
+            out.getFD().sync();
+        } catch (IOException e) {
+            throw new SQLException("Failed to write " + file + ": " + e);
+        } finally {
+            closeQuietly(out);
+        }
+        if (!tempFile.renameTo(file)) {
+            throw new SQLException("Failed to replace " + file);
+        }
+    }
+
+    private List<Long> locationIds() {
+        List<Long> ids = new ArrayList<Long>();
+        String[] names = mDirectory.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.endsWith(FILE_SUFFIX)) {
+                    try {
+                        ids.add(Long.parseLong(
+                                name.substring(0, name.length() - FILE_SUFFIX.length())));
+                    } catch (NumberFormatException e) {
+                        // not one of ours
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private File fileFor(long locationId) {
+        return new File(mDirectory, locationId + FILE_SUFFIX);
+    }
+
+    private static boolean isDescending(String sortOrder) {
+        return sortOrder != null && sortOrder.toUpperCase(Locale.US).endsWith("DESC");
+    }
+
+    private static String[] stripTableNames(String[] projection) {
+        String[] columns = new String[projection.length];
+        for (int i = 0; i < projection.length; i++) {
+            columns[i] = stripTableName(projection[i]);
+        }
+        return columns;
+    }
+
+    private static String stripTableName(String column) {
+        int dot = column.lastIndexOf('.');
+        return dot >= 0 ? column.substring(dot + 1) : column;
+    }
+
+    private static byte encodeDescription(String description) {
+        for (byte i = 1; i < DESCRIPTIONS.length; i++) {
+            if (DESCRIPTIONS[i].equals(description)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static String describeWeatherId(int weatherId) {
+        // Based on weather code data found at:
+        // http://bugs.openweathermap.org/projects/api/wiki/Weather_Condition_Codes
+        if (weatherId >= 200 && weatherId < 300) {
+            return "Thunderstorm";
+        } else if (weatherId >= 300 && weatherId < 400) {
+            return "Drizzle";
+        } else if (weatherId >= 500 && weatherId < 600) {
+            return "Rain";
+        } else if (weatherId >= 600 && weatherId < 700) {
+            return "Snow";
+        } else if (weatherId >= 700 && weatherId < 800) {
+            return "Mist";
+        } else if (weatherId == 800) {
+            return "Clear";
+        } else if (weatherId > 800 && weatherId < 900) {
+            return "Clouds";
+        } else if (weatherId >= 900 && weatherId < 950) {
+            return "Extreme";
+        }
+        return "Additional";
+    }
+
+    // What SQLite says when a NOT NULL constraint fails
+    private static SQLException notNullFailed(String column) {
+        return new SQLException("NOT NULL constraint failed: " + WeatherEntry.TABLE_NAME + "."
+                + column);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // nothing useful to do
+            }
+        }
+    }
+
+    /**
+     * The subset of SQL selections the provider's callers use on the weather table: terms of
+     * the form "column op ?" or "column op number", joined with AND, over the id, location,
+     * date and weather id columns.  Anything else is rejected with an SQLException, as SQLite
+     * rejects selections it can't compile.
+     */
+    static final class Selection {
+        private static final Selection ALL = new Selection(new String[0], new String[0],
+                new long[0]);
+
+        private static final Pattern TERM =
+                Pattern.compile("\\s*([\\w.]+)\\s*(==|=|!=|<>|<=|>=|<|>)\\s*(\\?|-?\\d+)\\s*");
+
+        private final String[] mColumns;
+        private final String[] mOperators;
+        private final long[] mValues;
+
+        private Selection(String[] columns, String[] operators, long[] values) {
+            mColumns = columns;
+            mOperators = operators;
+            mValues = values;
+        }
+
+        static Selection parse(String selection, String[] selectionArgs) {
+            if (selection == null || selection.trim().length() == 0
+                    || selection.trim().equals("1")) {
+                return ALL;
+            }
+            String[] terms = selection.trim().split("(?i)\\s+AND\\s+");
+            String[] columns = new String[terms.length];
+            String[] operators = new String[terms.length];
+            long[] values = new long[terms.length];
+            int arg = 0;
+            for (int i = 0; i < terms.length; i++) {
+                Matcher matcher = TERM.matcher(terms[i]);
+                if (!matcher.matches()) {
+                    throw unsupported(selection);
+                }
+                columns[i] = stripTableName(matcher.group(1));
+                operators[i] = matcher.group(2);
+                String value = matcher.group(3);
+                if ("?".equals(value)) {
+                    if (selectionArgs == null || arg >= selectionArgs.length) {
+                        throw unsupported(selection);
+                    }
+                    value = selectionArgs[arg++];
+                }
+                try {
+                    values[i] = Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    throw unsupported(selection);
+                }
+                if (!WeatherEntry._ID.equals(columns[i])
+                        && !WeatherEntry.COLUMN_LOC_KEY.equals(columns[i])
+                        && !WeatherEntry.COLUMN_DATE.equals(columns[i])
+                        && !WeatherEntry.COLUMN_WEATHER_ID.equals(columns[i])) {
+                    throw unsupported(selection);
+                }
+            }
+            return new Selection(columns, operators, values);
+        }
+
+        boolean matches(long locationId, Record record) {
+            for (int i = 0; i < mColumns.length; i++) {
+                long actual;
+                if (WeatherEntry._ID.equals(mColumns[i])) {
+                    actual = rowId(locationId, record);
+                } else if (WeatherEntry.COLUMN_LOC_KEY.equals(mColumns[i])) {
+                    actual = locationId;
+                } else if (WeatherEntry.COLUMN_DATE.equals(mColumns[i])) {
+                    actual = record.date;
+                } else {
+                    actual = record.weatherId;
+                }
+                if (!compare(actual, mOperators[i], mValues[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean compare(long actual, String operator, long expected) {
+            if ("=".equals(operator) || "==".equals(operator)) {
+                return actual == expected;
+            } else if ("!=".equals(operator) || "<>".equals(operator)) {
+                return actual != expected;
+            } else if ("<".equals(operator)) {
+                return actual < expected;
+            } else if ("<=".equals(operator)) {
+                return actual <= expected;
+            } else if (">".equals(operator)) {
+                return actual > expected;
+            }
+            return actual >= expected;
+        }
+
+        private static SQLException unsupported(String selection) {
+            return new SQLException(
+                    "Selection not supported by the packed forecast store: " + selection);
+        }
+    }
+}
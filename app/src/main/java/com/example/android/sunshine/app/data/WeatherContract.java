@@ -19,7 +19,10 @@ import android.content.ContentResolver;
 import android.content.ContentUris;
 import android.net.Uri;
 import android.provider.BaseColumns;
-import android.text.format.Time;
+
+import com.example.android.sunshine.core.DateMath;
+
+import java.util.TimeZone;
 
 /**
  * Defines table and column names for the weather database.
@@ -48,10 +51,7 @@ public class WeatherContract {
     // the database to the start of the the Julian day at UTC.
     public static long normalizeDate(long startDate) {
         // normalize the start date to the beginning of the (UTC) day
-        Time time = new Time();
-        time.set(startDate);
-        int julianDay = Time.getJulianDay(startDate, time.gmtoff);
-        return time.setJulianDay(julianDay);
+        return DateMath.normalizeDate(startDate, TimeZone.getDefault());
     }
 
     /* Inner class that defines the table contents of the location table */
@@ -81,12 +81,25 @@ public class WeatherContract {
         public static final String COLUMN_COORD_LAT = "coord_lat";
         public static final String COLUMN_COORD_LONG = "coord_long";
 
+        // Geohash of the coordinates, so that nearby locations can be found with an indexed
+        // prefix search instead of a scan of the whole table.  Maintained by the provider.
+        public static final String COLUMN_GEOHASH = "geohash";
+
+        // Time the forecast for this location was last fetched from the server, stored as long
+        // in milliseconds since the epoch.
+        public static final String COLUMN_LAST_UPDATED = "last_updated";
+
         public static Uri buildLocationUri(long id) {
             return ContentUris.withAppendedId(CONTENT_URI, id);
         }
     }
 
-    /* Inner class that defines the table contents of the weather table */
+    /* Inner class that defines the table contents of the weather table.
+     *
+     * When the packed forecast store holds this table (the use_packed_forecast_store resource),
+     * selections on it are limited to terms of the form "column op ?" or "column op number",
+     * joined with AND, over _id, location_id, date and weather_id; any other selection fails
+     * with an SQLException.  Ids are derived from the location and date, so can't be updated. */
     public static final class WeatherEntry implements BaseColumns {
 
         public static final Uri CONTENT_URI =
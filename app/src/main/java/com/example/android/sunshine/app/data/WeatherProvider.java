@@ -24,12 +24,25 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteQueryBuilder;
 import android.net.Uri;
 
+import com.example.android.sunshine.app.R;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 public class WeatherProvider extends ContentProvider {
 
     // The URI Matcher used by this content provider.
     private static final UriMatcher sUriMatcher = buildUriMatcher();
     private WeatherDbHelper mOpenHelper;
 
+    // Holds the weather table instead of SQLite when use_packed_forecast_store is set
+    private PackedForecastStore mPackedStore;
+
     static final int WEATHER = 100;
     static final int WEATHER_WITH_LOCATION = 101;
     static final int WEATHER_WITH_LOCATION_AND_DATE = 102;
@@ -68,10 +81,22 @@ public class WeatherProvider extends ContentProvider {
                     "." + WeatherContract.LocationEntry.COLUMN_LOCATION_SETTING + " = ? AND " +
                     WeatherContract.WeatherEntry.COLUMN_DATE + " = ? ";
 
+    private static final String[] LOCATION_INFO_PROJECTION = {
+            WeatherContract.LocationEntry._ID,
+            WeatherContract.LocationEntry.COLUMN_CITY_NAME,
+            WeatherContract.LocationEntry.COLUMN_COORD_LAT,
+            WeatherContract.LocationEntry.COLUMN_COORD_LONG
+    };
+
     private Cursor getWeatherByLocationSetting(Uri uri, String[] projection, String sortOrder) {
         String locationSetting = WeatherContract.WeatherEntry.getLocationSettingFromUri(uri);
         long startDate = WeatherContract.WeatherEntry.getStartDateFromUri(uri);
 
+        if (mPackedStore != null) {
+            return mPackedStore.query(getLocationInfo(locationSetting), projection, startDate, 0,
+                    sortOrder);
+        }
+
         String[] selectionArgs;
         String selection;
 
@@ -98,6 +123,11 @@ public class WeatherProvider extends ContentProvider {
         String locationSetting = WeatherContract.WeatherEntry.getLocationSettingFromUri(uri);
         long date = WeatherContract.WeatherEntry.getDateFromUri(uri);
 
+        if (mPackedStore != null) {
+            return mPackedStore.query(getLocationInfo(locationSetting), projection, 0, date,
+                    sortOrder);
+        }
+
         return sWeatherByLocationSettingQueryBuilder.query(mOpenHelper.getReadableDatabase(),
                 projection,
                 sLocationSettingAndDaySelection,
@@ -108,6 +138,26 @@ public class WeatherProvider extends ContentProvider {
         );
     }
 
+    private PackedForecastStore.LocationInfo getLocationInfo(String locationSetting) {
+        Cursor cursor = mOpenHelper.getReadableDatabase().query(
+                WeatherContract.LocationEntry.TABLE_NAME,
+                LOCATION_INFO_PROJECTION,
+                WeatherContract.LocationEntry.COLUMN_LOCATION_SETTING + " = ?",
+                new String[]{locationSetting},
+                null,
+                null,
+                null);
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            return new PackedForecastStore.LocationInfo(cursor.getLong(0), locationSetting,
+                    cursor.getString(1), cursor.getDouble(2), cursor.getDouble(3));
+        } finally {
+            cursor.close();
+        }
+    }
+
     /*
         Students: Here is where you need to create the UriMatcher. This UriMatcher will
         match each URI to the WEATHER, WEATHER_WITH_LOCATION, WEATHER_WITH_LOCATION_AND_DATE,
@@ -140,6 +190,10 @@ public class WeatherProvider extends ContentProvider {
     @Override
     public boolean onCreate() {
         mOpenHelper = new WeatherDbHelper(getContext());
+        if (getContext().getResources().getBoolean(R.bool.use_packed_forecast_store)) {
+            mPackedStore = new PackedForecastStore(
+                    new File(getContext().getFilesDir(), PackedForecastStore.DIRECTORY_NAME));
+        }
         return true;
     }
 
@@ -189,6 +243,11 @@ public class WeatherProvider extends ContentProvider {
             }
             // "weather"
             case WEATHER: {
+                if (mPackedStore != null) {
+                    retCursor = mPackedStore.query(projection, selection, selectionArgs,
+                            sortOrder);
+                    break;
+                }
                 retCursor = mOpenHelper.getReadableDatabase().query(
                         WeatherContract.WeatherEntry.TABLE_NAME,
                         projection,
@@ -233,6 +292,11 @@ public class WeatherProvider extends ContentProvider {
         switch (match) {
             case WEATHER: {
                 normalizeDate(values);
+                if (mPackedStore != null) {
+                    returnUri = WeatherContract.WeatherEntry.buildWeatherUri(
+                            insertPacked(new ContentValues[]{values}));
+                    break;
+                }
                 long _id = db.insert(WeatherContract.WeatherEntry.TABLE_NAME, null, values);
                 if ( _id > 0 )
                     returnUri = WeatherContract.WeatherEntry.buildWeatherUri(_id);
@@ -241,6 +305,7 @@ public class WeatherProvider extends ContentProvider {
                 break;
             }
             case LOCATION: {
+                addGeoHash(values);
                 long _id = db.insert(WeatherContract.LocationEntry.TABLE_NAME, null, values);
                 if ( _id > 0 )
                     returnUri = WeatherContract.LocationEntry.buildLocationUri(_id);
@@ -264,12 +329,19 @@ public class WeatherProvider extends ContentProvider {
         if ( null == selection ) selection = "1";
         switch (match) {
             case WEATHER:
+                if (mPackedStore != null) {
+                    rowsDeleted = mPackedStore.delete(selection, selectionArgs);
+                    break;
+                }
                 rowsDeleted = db.delete(
                         WeatherContract.WeatherEntry.TABLE_NAME, selection, selectionArgs);
                 break;
             case LOCATION:
                 rowsDeleted = db.delete(
                         WeatherContract.LocationEntry.TABLE_NAME, selection, selectionArgs);
+                if (mPackedStore != null && rowsDeleted != 0) {
+                    mPackedStore.retainLocations(getLocationIds(db));
+                }
                 break;
             default:
                 throw new UnsupportedOperationException("Unknown uri: " + uri);
@@ -289,6 +361,60 @@ public class WeatherProvider extends ContentProvider {
         }
     }
 
+    private Set<Long> getLocationIds(SQLiteDatabase db) {
+        Set<Long> ids = new HashSet<Long>();
+        Cursor cursor = db.query(WeatherContract.LocationEntry.TABLE_NAME,
+                new String[]{WeatherContract.LocationEntry._ID}, null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return ids;
+    }
+
+    /**
+     * Writes weather rows to the packed store, one file write per location.
+     *
+     * @return the id of the last row written
+     */
+    private long insertPacked(ContentValues[] values) {
+        Map<Long, List<PackedForecastStore.Record>> byLocation =
+                new LinkedHashMap<Long, List<PackedForecastStore.Record>>();
+        long lastId = -1;
+        for (ContentValues value : values) {
+            Long locationId = value.getAsLong(WeatherContract.WeatherEntry.COLUMN_LOC_KEY);
+            if (locationId == null) {
+                throw new android.database.SQLException("Weather row without a location");
+            }
+            PackedForecastStore.Record record = PackedForecastStore.Record.fromValues(value);
+            List<PackedForecastStore.Record> records = byLocation.get(locationId);
+            if (records == null) {
+                records = new ArrayList<PackedForecastStore.Record>();
+                byLocation.put(locationId, records);
+            }
+            records.add(record);
+            lastId = PackedForecastStore.rowId(locationId, record);
+        }
+        for (Map.Entry<Long, List<PackedForecastStore.Record>> entry : byLocation.entrySet()) {
+            mPackedStore.put(entry.getKey(), entry.getValue());
+        }
+        return lastId;
+    }
+
+    private void addGeoHash(ContentValues values) {
+        // keep the geohash in step with the coordinates
+        if (values.containsKey(WeatherContract.LocationEntry.COLUMN_COORD_LAT)
+                && values.containsKey(WeatherContract.LocationEntry.COLUMN_COORD_LONG)) {
+            double lat = values.getAsDouble(WeatherContract.LocationEntry.COLUMN_COORD_LAT);
+            double lon = values.getAsDouble(WeatherContract.LocationEntry.COLUMN_COORD_LONG);
+            values.put(WeatherContract.LocationEntry.COLUMN_GEOHASH,
+                    GeoHash.encode(lat, lon, GeoHash.MAX_PRECISION));
+        }
+    }
+
     @Override
     public int update(
             Uri uri, ContentValues values, String selection, String[] selectionArgs) {
@@ -299,10 +425,15 @@ public class WeatherProvider extends ContentProvider {
         switch (match) {
             case WEATHER:
                 normalizeDate(values);
+                if (mPackedStore != null) {
+                    rowsUpdated = mPackedStore.update(values, selection, selectionArgs);
+                    break;
+                }
                 rowsUpdated = db.update(WeatherContract.WeatherEntry.TABLE_NAME, values, selection,
                         selectionArgs);
                 break;
             case LOCATION:
+                addGeoHash(values);
                 rowsUpdated = db.update(WeatherContract.LocationEntry.TABLE_NAME, values, selection,
                         selectionArgs);
                 break;
@@ -321,6 +452,14 @@ public class WeatherProvider extends ContentProvider {
         final int match = sUriMatcher.match(uri);
         switch (match) {
             case WEATHER:
+                if (mPackedStore != null) {
+                    for (ContentValues value : values) {
+                        normalizeDate(value);
+                    }
+                    insertPacked(values);
+                    getContext().getContentResolver().notifyChange(uri, null);
+                    return values.length;
+                }
                 db.beginTransaction();
                 int returnCount = 0;
                 try {
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app.muzei;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.view.WindowManager;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.FutureTarget;
+import com.example.android.sunshine.app.R;
+import com.example.android.sunshine.core.WeatherConditions;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+
+/**
+ * The Muzei photos, each downloaded once, scaled down to the screen and kept in app storage,
+ * from where ArtworkProvider serves them to Muzei.  The originals run to several megabytes, far
+ * more than a wallpaper needs, and Muzei would otherwise download one for every artwork
+ * published.
+ */
+class ArtworkStore {
+    private static final String LOG_TAG = ArtworkStore.class.getSimpleName();
+
+    private static final String DIRECTORY_NAME = "muzei";
+    private static final int JPEG_QUALITY = 90;
+
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9a-f]+\\.jpg");
+
+    /**
+     * The content uri of the stored photo for an image url, downloading it first if it isn't
+     * stored yet, or null if it couldn't be.  Blocks, so must not be called on the main thread.
+     */
+    static synchronized Uri getArtworkUri(Context context, String imageUrl) {
+        int size = getScreenSize(context);
+        File file = new File(getDirectory(context), getFileName(imageUrl, size));
+        if (!file.exists()) {
+            if (!download(context, imageUrl, size, file)) {
+                return null;
+            }
+            // Whatever made this one new may have left others unused
+            prune(context, size);
+        }
+        return new Uri.Builder()
+                .scheme(ContentResolver.SCHEME_CONTENT)
+                .authority(context.getString(R.string.muzei_artwork_authority))
+                .appendPath(file.getName())
+                .build();
+    }
+
+    /**
+     * The stored photo a content uri from getArtworkUri names, or null if it names none.
+     */
+    static File getFile(Context context, Uri uri) {
+        // Only names getFileName makes, so no uri, however encoded, reaches any other file
+        String name = uri.getLastPathSegment();
+        if (uri.getPathSegments().size() != 1 || !FILE_NAME.matcher(name).matches()) {
+            return null;
+        }
+        File file = new File(getDirectory(context), name);
+        return file.isFile() ? file : null;
+    }
+
+    private static File getDirectory(Context context) {
+        return new File(context.getFilesDir(), DIRECTORY_NAME);
+    }
+
+    // Named after the url and the size, so a photo that gets replaced in the table, or a
+    // screen of another size, has it downloaded again
+    private static String getFileName(String imageUrl, int size) {
+        return Integer.toHexString((imageUrl + "@" + size).hashCode()) + ".jpg";
+    }
+
+    // Deletes every file that no condition's photo at this size is stored in
+    private static void prune(Context context, int size) {
+        Set<String> names = new HashSet<String>();
+        for (int weatherId = WeatherConditions.MIN_CODE; weatherId <= WeatherConditions.MAX_CODE;
+                weatherId++) {
+            String imageUrl = WeatherConditions.getImageUrl(weatherId);
+            if (imageUrl != null) {
+                names.add(getFileName(imageUrl, size));
+            }
+        }
+        File[] files = getDirectory(context).listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!names.contains(file.getName()) && file.delete()) {
+                Log.d(LOG_TAG, "Deleted unused " + file.getName());
+            }
+        }
+    }
+
+    // Covers the screen in either orientation, and no more
+    private static boolean download(Context context, String imageUrl, int size, File file) {
+        long start = System.currentTimeMillis();
+        // Only the scaled down photo is worth keeping, and that is kept here
+        FutureTarget<Bitmap> target = Glide.with(context.getApplicationContext())
+                .load(imageUrl)
+                .asBitmap()
+                .diskCacheStrategy(DiskCacheStrategy.NONE)
+                .into(size, size);
+        try {
+            Bitmap bitmap = target.get();
+            // Glide decodes to a power of two of the original, so finish the scaling here
+            float scale = (float) size / Math.min(bitmap.getWidth(), bitmap.getHeight());
+            if (scale < 1) {
+                bitmap = Bitmap.createScaledBitmap(bitmap,
+                        Math.round(bitmap.getWidth() * scale),
+                        Math.round(bitmap.getHeight() * scale), true);
+            }
+            save(bitmap, file);
+            Log.d(LOG_TAG, "Stored " + imageUrl + " at " + bitmap.getWidth() + "x"
+                    + bitmap.getHeight() + " in " + (System.currentTimeMillis() - start) + "ms");
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            Log.e(LOG_TAG, "Error retrieving " + imageUrl, e);
+            return false;
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Unable to store " + imageUrl, e);
+            return false;
+        } finally {
+            target.clear();
+        }
+    }
+
+    // Written under another name first, so a photo is only ever served whole
+    private static void save(Bitmap bitmap, File file) throws IOException {
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        File partial = new File(directory, "." + file.getName());
+        OutputStream out = new FileOutputStream(partial);
+        try {
+            if (!bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out)) {
+                throw new IOException("Unable to compress " + file.getName());
+            }
+        } finally {
+            out.close();
+        }
+        if (!partial.renameTo(file)) {
+            partial.delete();
+            throw new IOException("Unable to rename " + partial);
+        }
+    }
+
+    private static int getScreenSize(Context context) {
+        DisplayMetrics metrics = new DisplayMetrics();
+        ((WindowManager) context.getSystemService(Context.WINDOW_SERVICE))
+                .getDefaultDisplay().getMetrics(metrics);
+        return Math.max(metrics.widthPixels, metrics.heightPixels);
+    }
+}
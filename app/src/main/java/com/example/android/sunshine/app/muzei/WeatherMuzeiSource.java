@@ -20,6 +20,7 @@ import android.database.Cursor;
 import android.net.Uri;
 
 import com.example.android.sunshine.app.MainActivity;
+import com.example.android.sunshine.app.UpdateFingerprints;
 import com.example.android.sunshine.app.Utility;
 import com.example.android.sunshine.app.data.WeatherContract;
 import com.example.android.sunshine.app.sync.SunshineSyncAdapter;
@@ -66,14 +67,32 @@ public class WeatherMuzeiSource extends MuzeiArtSource {
             String imageUrl = Utility.getImageUrlForWeatherCondition(weatherId);
             // Only publish a new wallpaper if we have a valid image
             if (imageUrl != null) {
-                publishArtwork(new Artwork.Builder()
-                        .imageUri(Uri.parse(imageUrl))
-                        .title(desc)
-                        .byline(location)
-                        .viewIntent(new Intent(this, MainActivity.class))
-                        .build());
+                publishArtwork(reason, getImageUri(imageUrl), desc, location);
             }
         }
         cursor.close();
     }
+
+    // Muzei fetches every artwork published, so when a sync is what asks, only publish one that
+    // isn't already up
+    private void publishArtwork(int reason, Uri imageUri, String desc, String location) {
+        String fingerprint = imageUri + "\n" + desc + "\n" + location;
+        if (reason == UPDATE_REASON_OTHER
+                && UpdateFingerprints.isUnchanged(this, UpdateFingerprints.MUZEI, fingerprint)) {
+            return;
+        }
+        publishArtwork(new Artwork.Builder()
+                .imageUri(imageUri)
+                .title(desc)
+                .byline(location)
+                .viewIntent(new Intent(this, MainActivity.class))
+                .build());
+        UpdateFingerprints.markPublished(this, UpdateFingerprints.MUZEI, fingerprint);
+    }
+
+    // Our stored copy of the photo, or the original until it could be stored
+    private Uri getImageUri(String imageUrl) {
+        Uri artworkUri = ArtworkStore.getArtworkUri(this, imageUrl);
+        return artworkUri != null ? artworkUri : Uri.parse(imageUrl);
+    }
 }
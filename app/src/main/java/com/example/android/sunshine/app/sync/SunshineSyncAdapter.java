@@ -2,7 +2,6 @@ package com.example.android.sunshine.app.sync;
 
 import android.accounts.Account;
 import android.accounts.AccountManager;
-import android.annotation.SuppressLint;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.AbstractThreadedSyncAdapter;
@@ -17,6 +16,7 @@ import android.content.SyncRequest;
 import android.content.SyncResult;
 import android.content.res.Resources;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.net.Uri;
@@ -26,21 +26,26 @@ import android.preference.PreferenceManager;
 import android.support.annotation.IntDef;
 import android.support.v4.app.NotificationCompat;
 import android.support.v4.app.TaskStackBuilder;
-import android.text.format.Time;
 import android.util.Log;
 
 import com.bumptech.glide.Glide;
+import com.example.android.sunshine.app.ArtPrefetcher;
+import com.example.android.sunshine.app.ArtRequests;
 import com.example.android.sunshine.app.BuildConfig;
 import com.example.android.sunshine.app.MainActivity;
+import com.example.android.sunshine.app.PreferenceSnapshot;
+import com.example.android.sunshine.app.PreferenceStore;
 import com.example.android.sunshine.app.R;
 import com.example.android.sunshine.app.Utility;
+import com.example.android.sunshine.app.data.GeoHash;
 import com.example.android.sunshine.app.data.WeatherContract;
 import com.example.android.sunshine.app.muzei.WeatherMuzeiSource;
 import com.example.android.sunshine.app.wearable.TodayWearableIntentService;
+import com.example.android.sunshine.core.DateMath;
+import com.example.android.sunshine.core.Forecast;
+import com.example.android.sunshine.core.ForecastParser;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -50,7 +55,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.Vector;
+import java.util.TimeZone;
 import java.util.concurrent.ExecutionException;
 
 public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
@@ -78,6 +83,34 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
     private static final int INDEX_MIN_TEMP = 2;
     private static final int INDEX_SHORT_DESC = 3;
 
+    private static final String[] NEARBY_LOCATION_PROJECTION = new String[] {
+            WeatherContract.LocationEntry._ID,
+            WeatherContract.LocationEntry.COLUMN_CITY_NAME,
+            WeatherContract.LocationEntry.COLUMN_COORD_LAT,
+            WeatherContract.LocationEntry.COLUMN_COORD_LONG,
+            WeatherContract.LocationEntry.COLUMN_LAST_UPDATED
+    };
+
+    // these indices must match the projection
+    private static final int INDEX_NEARBY_ID = 0;
+    private static final int INDEX_NEARBY_CITY_NAME = 1;
+    private static final int INDEX_NEARBY_COORD_LAT = 2;
+    private static final int INDEX_NEARBY_COORD_LONG = 3;
+    private static final int INDEX_NEARBY_LAST_UPDATED = 4;
+
+    // Every weather column except the row and location ids, for copying a nearby forecast
+    private static final String[] NEARBY_WEATHER_PROJECTION = new String[] {
+            WeatherContract.WeatherEntry.COLUMN_DATE,
+            WeatherContract.WeatherEntry.COLUMN_SHORT_DESC,
+            WeatherContract.WeatherEntry.COLUMN_WEATHER_ID,
+            WeatherContract.WeatherEntry.COLUMN_MIN_TEMP,
+            WeatherContract.WeatherEntry.COLUMN_MAX_TEMP,
+            WeatherContract.WeatherEntry.COLUMN_HUMIDITY,
+            WeatherContract.WeatherEntry.COLUMN_PRESSURE,
+            WeatherContract.WeatherEntry.COLUMN_WIND_SPEED,
+            WeatherContract.WeatherEntry.COLUMN_DEGREES
+    };
+
     @Retention(RetentionPolicy.SOURCE)
     @IntDef({LOCATION_STATUS_OK, LOCATION_STATUS_SERVER_DOWN, LOCATION_STATUS_SERVER_INVALID,  LOCATION_STATUS_UNKNOWN, LOCATION_STATUS_INVALID})
     public @interface LocationStatus {}
@@ -94,6 +127,15 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
 
     @Override
     public void onPerformSync(Account account, Bundle extras, String authority, ContentProviderClient provider, SyncResult syncResult) {
+        try {
+            performSync();
+        } finally {
+            // The process may be let go once the sync is over
+            PreferenceStore.get(getContext()).flush();
+        }
+    }
+
+    private void performSync() {
         Log.d(LOG_TAG, "Starting sync");
 
         // We no longer need just the location String, but also potentially the latitude and
@@ -115,6 +157,13 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
         String units = "metric";
         int numDays = 14;
 
+        // A Place Picker location a few hundred meters from one we already have a fresh
+        // forecast for doesn't need a trip to the server.
+        if (Utility.isLocationLatLonAvailable(context) && copyNearbyForecast(locationQuery,
+                Utility.getLocationLatitude(context), Utility.getLocationLongitude(context))) {
+            return;
+        }
+
         try {
             // Construct the URL for the OpenWeatherMap query
             // Possible parameters are avaiable at OWM's forecast API page, at
@@ -209,170 +258,67 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
      * Take the String representing the complete forecast in JSON Format and
      * pull out the data we need to construct the Strings needed for the wireframes.
      *
-     * Fortunately parsing is easy:  constructor takes the JSON string and converts it
-     * into an Object hierarchy for us.
+     * The parsing itself is done by ForecastParser, in weather-core.
      */
     private void getWeatherDataFromJson(String forecastJsonStr,
                                         String locationSetting)
             throws JSONException {
-
-        // Now we have a String representing the complete forecast in JSON Format.
-        // Fortunately parsing is easy:  constructor takes the JSON string and converts it
-        // into an Object hierarchy for us.
-
-        // These are the names of the JSON objects that need to be extracted.
-
-        // Location information
-        final String OWM_CITY = "city";
-        final String OWM_CITY_NAME = "name";
-        final String OWM_COORD = "coord";
-
-        // Location coordinate
-        final String OWM_LATITUDE = "lat";
-        final String OWM_LONGITUDE = "lon";
-
-        // Weather information.  Each day's forecast info is an element of the "list" array.
-        final String OWM_LIST = "list";
-
-        final String OWM_PRESSURE = "pressure";
-        final String OWM_HUMIDITY = "humidity";
-        final String OWM_WINDSPEED = "speed";
-        final String OWM_WIND_DIRECTION = "deg";
-
-        // All temperatures are children of the "temp" object.
-        final String OWM_TEMPERATURE = "temp";
-        final String OWM_MAX = "max";
-        final String OWM_MIN = "min";
-
-        final String OWM_WEATHER = "weather";
-        final String OWM_DESCRIPTION = "main";
-        final String OWM_WEATHER_ID = "id";
-
-        final String OWM_MESSAGE_CODE = "cod";
-
         try {
-            JSONObject forecastJson = new JSONObject(forecastJsonStr);
-            Context context = getContext();
+            TimeZone timeZone = TimeZone.getDefault();
+            Forecast forecast = ForecastParser.parse(forecastJsonStr,
+                    System.currentTimeMillis(), timeZone);
 
             // do we have an error?
-            if ( forecastJson.has(OWM_MESSAGE_CODE) ) {
-                int errorCode = forecastJson.getInt(OWM_MESSAGE_CODE);
-
-                switch (errorCode) {
-                    case HttpURLConnection.HTTP_OK:
-                        break;
-                    case HttpURLConnection.HTTP_NOT_FOUND:
-                        setLocationStatus(getContext(), LOCATION_STATUS_INVALID);
-                        return;
-                    default:
-                        setLocationStatus(getContext(), LOCATION_STATUS_SERVER_DOWN);
-                        return;
-                }
+            switch (forecast.code) {
+                case HttpURLConnection.HTTP_OK:
+                    break;
+                case HttpURLConnection.HTTP_NOT_FOUND:
+                    setLocationStatus(getContext(), LOCATION_STATUS_INVALID);
+                    return;
+                default:
+                    setLocationStatus(getContext(), LOCATION_STATUS_SERVER_DOWN);
+                    return;
             }
 
-            JSONArray weatherArray = forecastJson.getJSONArray(OWM_LIST);
-
-            JSONObject cityJson = forecastJson.getJSONObject(OWM_CITY);
-            String cityName = cityJson.getString(OWM_CITY_NAME);
-
-            JSONObject cityCoord = cityJson.getJSONObject(OWM_COORD);
-            double cityLatitude = cityCoord.getDouble(OWM_LATITUDE);
-            double cityLongitude = cityCoord.getDouble(OWM_LONGITUDE);
-
-            long locationId = addLocation(locationSetting, cityName, cityLatitude, cityLongitude);
+            long locationId = addLocation(locationSetting, forecast.cityName,
+                    forecast.latitude, forecast.longitude);
+            long syncTime = System.currentTimeMillis();
 
             // Insert the new weather information into the database
-            Vector<ContentValues> cVVector = new Vector<ContentValues>(weatherArray.length());
-
-            // OWM returns daily forecasts based upon the local time of the city that is being
-            // asked for, which means that we need to know the GMT offset to translate this data
-            // properly.
-
-            // Since this data is also sent in-order and the first day is always the
-            // current day, we're going to take advantage of that to get a nice
-            // normalized UTC date for all of our weather.
-
-            Time dayTime = new Time();
-            dayTime.setToNow();
-
-            // we start at the day returned by local time. Otherwise this is a mess.
-            int julianStartDay = Time.getJulianDay(System.currentTimeMillis(), dayTime.gmtoff);
-
-            // now we work exclusively in UTC
-            dayTime = new Time();
-
-            for(int i = 0; i < weatherArray.length(); i++) {
-                // These are the values that will be collected.
-                long dateTime;
-                double pressure;
-                int humidity;
-                double windSpeed;
-                double windDirection;
-
-                double high;
-                double low;
-
-                String description;
-                int weatherId;
-
-                // Get the JSON object representing the day
-                JSONObject dayForecast = weatherArray.getJSONObject(i);
-
-                // Cheating to convert this to UTC time, which is what we want anyhow
-                dateTime = dayTime.setJulianDay(julianStartDay+i);
-
-                pressure = dayForecast.getDouble(OWM_PRESSURE);
-                humidity = dayForecast.getInt(OWM_HUMIDITY);
-                windSpeed = dayForecast.getDouble(OWM_WINDSPEED);
-                windDirection = dayForecast.getDouble(OWM_WIND_DIRECTION);
-
-                // Description is in a child array called "weather", which is 1 element long.
-                // That element also contains a weather code.
-                JSONObject weatherObject =
-                        dayForecast.getJSONArray(OWM_WEATHER).getJSONObject(0);
-                description = weatherObject.getString(OWM_DESCRIPTION);
-                weatherId = weatherObject.getInt(OWM_WEATHER_ID);
-
-                // Temperatures are in a child object called "temp".  Try not to name variables
-                // "temp" when working with temperature.  It confuses everybody.
-                JSONObject temperatureObject = dayForecast.getJSONObject(OWM_TEMPERATURE);
-                high = temperatureObject.getDouble(OWM_MAX);
-                low = temperatureObject.getDouble(OWM_MIN);
-
+            ContentValues[] cvArray = new ContentValues[forecast.days.size()];
+            for (int i = 0; i < cvArray.length; i++) {
+                Forecast.Day day = forecast.days.get(i);
                 ContentValues weatherValues = new ContentValues();
 
                 weatherValues.put(WeatherContract.WeatherEntry.COLUMN_LOC_KEY, locationId);
-                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_DATE, dateTime);
-                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_HUMIDITY, humidity);
-                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_PRESSURE, pressure);
-                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_WIND_SPEED, windSpeed);
-                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_DEGREES, windDirection);
-                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_MAX_TEMP, high);
-                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_MIN_TEMP, low);
-                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_SHORT_DESC, description);
-                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_WEATHER_ID, weatherId);
-
-                cVVector.add(weatherValues);
+                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_DATE, day.date);
+                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_HUMIDITY, day.humidity);
+                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_PRESSURE, day.pressure);
+                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_WIND_SPEED, day.windSpeed);
+                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_DEGREES, day.windDirection);
+                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_MAX_TEMP, day.high);
+                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_MIN_TEMP, day.low);
+                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_SHORT_DESC, day.description);
+                weatherValues.put(WeatherContract.WeatherEntry.COLUMN_WEATHER_ID, day.weatherId);
+
+                cvArray[i] = weatherValues;
             }
 
-            int inserted = 0;
             // add to database
-            if ( cVVector.size() > 0 ) {
-                ContentValues[] cvArray = new ContentValues[cVVector.size()];
-                cVVector.toArray(cvArray);
+            if ( cvArray.length > 0 ) {
                 getContext().getContentResolver().bulkInsert(WeatherContract.WeatherEntry.CONTENT_URI, cvArray);
 
                 // delete old data so we don't build up an endless history
+                long yesterday = DateMath.getStartOfJulianDay(forecast.julianStartDay - 1,
+                        timeZone);
                 getContext().getContentResolver().delete(WeatherContract.WeatherEntry.CONTENT_URI,
                         WeatherContract.WeatherEntry.COLUMN_DATE + " <= ?",
-                        new String[] {Long.toString(dayTime.setJulianDay(julianStartDay-1))});
+                        new String[] {Long.toString(yesterday)});
 
-                updateWidgets();
-                updateMuzei();
-                updateWearable();
-                notifyWeather();
+                setLocationLastUpdated(locationId, syncTime);
+                onForecastUpdated();
             }
-            Log.d(LOG_TAG, "Sync Complete. " + cVVector.size() + " Inserted");
+            Log.d(LOG_TAG, "Sync Complete. " + cvArray.length + " Inserted");
             setLocationStatus(getContext(), LOCATION_STATUS_OK);
 
         } catch (JSONException e) {
@@ -382,6 +328,128 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
         }
     }
 
+    /**
+     * Looks for a cached location within the configured radius of the given coordinates whose
+     * forecast is recent enough, and if there is one copies its forecast to locationSetting.
+     * The lookup is a range query on the geohash index over the cell containing the coordinates
+     * and its neighbours, followed by an exact distance check on the few candidates.
+     *
+     * @param locationSetting The location string the forecast is being requested for.
+     * @param lat the latitude picked by the user
+     * @param lon the longitude picked by the user
+     * @return true if a nearby forecast was copied, so no network sync is needed.
+     */
+    boolean copyNearbyForecast(String locationSetting, double lat, double lon) {
+        Context context = getContext();
+        Resources resources = context.getResources();
+        int radiusMeters = resources.getInteger(R.integer.nearby_forecast_radius_meters);
+        long maxAgeMillis = resources.getInteger(R.integer.nearby_forecast_max_age_minutes)
+                * 60 * 1000L;
+
+        // location.geohash >= ? AND location.geohash < ?, once per cell
+        String[] cells = GeoHash.cellAndNeighbours(lat, lon,
+                GeoHash.precisionForRadius(radiusMeters, lat));
+        StringBuilder selection = new StringBuilder("(");
+        String[] selectionArgs = new String[cells.length * 2 + 2];
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) selection.append(" OR ");
+            selection.append("(").append(WeatherContract.LocationEntry.COLUMN_GEOHASH)
+                    .append(" >= ? AND ").append(WeatherContract.LocationEntry.COLUMN_GEOHASH)
+                    .append(" < ?)");
+            selectionArgs[i * 2] = cells[i];
+            selectionArgs[i * 2 + 1] = GeoHash.prefixUpperBound(cells[i]);
+        }
+        selection.append(") AND ").append(WeatherContract.LocationEntry.COLUMN_LOCATION_SETTING)
+                .append(" != ? AND ").append(WeatherContract.LocationEntry.COLUMN_LAST_UPDATED)
+                .append(" >= ?");
+        selectionArgs[cells.length * 2] = locationSetting;
+        selectionArgs[cells.length * 2 + 1] =
+                Long.toString(System.currentTimeMillis() - maxAgeMillis);
+
+        Cursor locationCursor = context.getContentResolver().query(
+                WeatherContract.LocationEntry.CONTENT_URI,
+                NEARBY_LOCATION_PROJECTION,
+                selection.toString(),
+                selectionArgs,
+                null);
+        if (locationCursor == null) {
+            return false;
+        }
+
+        long nearestId = -1;
+        String nearestCityName = null;
+        long nearestLastUpdated = 0;
+        double nearestDistance = radiusMeters;
+        while (locationCursor.moveToNext()) {
+            double distance = GeoHash.distanceMeters(lat, lon,
+                    locationCursor.getDouble(INDEX_NEARBY_COORD_LAT),
+                    locationCursor.getDouble(INDEX_NEARBY_COORD_LONG));
+            if (distance <= nearestDistance) {
+                nearestDistance = distance;
+                nearestId = locationCursor.getLong(INDEX_NEARBY_ID);
+                nearestCityName = locationCursor.getString(INDEX_NEARBY_CITY_NAME);
+                nearestLastUpdated = locationCursor.getLong(INDEX_NEARBY_LAST_UPDATED);
+            }
+        }
+        locationCursor.close();
+        if (nearestId == -1) {
+            return false;
+        }
+
+        Cursor weatherCursor = context.getContentResolver().query(
+                WeatherContract.WeatherEntry.CONTENT_URI,
+                NEARBY_WEATHER_PROJECTION,
+                WeatherContract.WeatherEntry.COLUMN_LOC_KEY + " = ? AND " +
+                        WeatherContract.WeatherEntry.COLUMN_DATE + " >= ?",
+                new String[]{Long.toString(nearestId),
+                        Long.toString(WeatherContract.normalizeDate(System.currentTimeMillis()))},
+                null);
+        if (weatherCursor == null) {
+            return false;
+        }
+        if (weatherCursor.getCount() == 0) {
+            weatherCursor.close();
+            return false;
+        }
+
+        long locationId = addLocation(locationSetting, nearestCityName, lat, lon);
+        ContentValues[] cvArray = new ContentValues[weatherCursor.getCount()];
+        for (int i = 0; weatherCursor.moveToNext(); i++) {
+            ContentValues weatherValues = new ContentValues();
+            DatabaseUtils.cursorRowToContentValues(weatherCursor, weatherValues);
+            weatherValues.put(WeatherContract.WeatherEntry.COLUMN_LOC_KEY, locationId);
+            cvArray[i] = weatherValues;
+        }
+        weatherCursor.close();
+        context.getContentResolver().bulkInsert(WeatherContract.WeatherEntry.CONTENT_URI, cvArray);
+
+        // Inherit the age of the copied forecast, so copies of copies can't outlive it
+        setLocationLastUpdated(locationId, nearestLastUpdated);
+        onForecastUpdated();
+        Log.d(LOG_TAG, "Reused forecast of " + nearestCityName + ", " + (int) nearestDistance +
+                "m away. " + cvArray.length + " Inserted");
+        setLocationStatus(context, LOCATION_STATUS_OK);
+        return true;
+    }
+
+    private void setLocationLastUpdated(long locationId, long lastUpdated) {
+        ContentValues locationValues = new ContentValues();
+        locationValues.put(WeatherContract.LocationEntry.COLUMN_LAST_UPDATED, lastUpdated);
+        getContext().getContentResolver().update(WeatherContract.LocationEntry.CONTENT_URI,
+                locationValues,
+                WeatherContract.LocationEntry._ID + " = ?",
+                new String[]{Long.toString(locationId)});
+    }
+
+    private void onForecastUpdated() {
+        // Before everything that shows the art
+        ArtPrefetcher.prefetch(getContext());
+        updateWidgets();
+        updateMuzei();
+        updateWearable();
+        notifyWeather();
+    }
+
     private void updateWidgets() {
         Context context = getContext();
         // Setting the package ensures that only components in our app will receive the broadcast
@@ -421,7 +489,7 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
         if ( displayNotifications ) {
 
             String lastNotificationKey = context.getString(R.string.pref_last_notification);
-            long lastSync = prefs.getLong(lastNotificationKey, 0);
+            long lastSync = PreferenceStore.get(context).getLong(lastNotificationKey, 0);
 
             if (System.currentTimeMillis() - lastSync >= DAY_IN_MILLIS) {
                 // Last sync was more than 1 day ago, let's send a notification with the weather.
@@ -443,26 +511,11 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
                     int artResourceId = Utility.getArtResourceForWeatherCondition(weatherId);
                     String artUrl = Utility.getArtUrlForWeatherCondition(context, weatherId);
 
-                    // On Honeycomb and higher devices, we can retrieve the size of the large icon
-                    // Prior to that, we use a fixed size
-                    @SuppressLint("InlinedApi")
-                    int largeIconWidth = Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB
-                            ? resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_width)
-                            : resources.getDimensionPixelSize(R.dimen.notification_large_icon_default);
-                    @SuppressLint("InlinedApi")
-                    int largeIconHeight = Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB
-                            ? resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_height)
-                            : resources.getDimensionPixelSize(R.dimen.notification_large_icon_default);
-
-                    // Retrieve the large icon
+                    // Retrieve the large icon, which the sync has just prefetched
                     Bitmap largeIcon;
                     try {
-                        largeIcon = Glide.with(context)
-                                .load(artUrl)
-                                .asBitmap()
-                                .error(artResourceId)
-                                .fitCenter()
-                                .into(largeIconWidth, largeIconHeight).get();
+                        largeIcon = ArtRequests.loadNotificationIcon(context,
+                                Glide.with(context), artUrl).get();
                     } catch (InterruptedException | ExecutionException e) {
                         Log.e(LOG_TAG, "Error retrieving large icon from " + artUrl, e);
                         largeIcon = BitmapFactory.decodeResource(resources, artResourceId);
@@ -508,9 +561,8 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
                     mNotificationManager.notify(WEATHER_NOTIFICATION_ID, mBuilder.build());
 
                     //refreshing last sync
-                    SharedPreferences.Editor editor = prefs.edit();
-                    editor.putLong(lastNotificationKey, System.currentTimeMillis());
-                    editor.commit();
+                    PreferenceStore.get(context).putLong(lastNotificationKey,
+                            System.currentTimeMillis());
                 }
                 cursor.close();
             }
@@ -659,15 +711,14 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
     }
 
     /**
-     * Sets the location status into shared preference.  This function should not be called from
-     * the UI thread because it uses commit to write to the shared preferences.
-     * @param c Context to get the PreferenceManager from.
+     * Sets the location status into shared preference.  The write goes through PreferenceStore,
+     * which holds it for the flush at the end of the sync.
+     * @param c Context to get the PreferenceStore from.
      * @param locationStatus The IntDef value to set
      */
     static private void setLocationStatus(Context c, @LocationStatus int locationStatus){
-        SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(c);
-        SharedPreferences.Editor spe = sp.edit();
-        spe.putInt(c.getString(R.string.pref_location_status_key), locationStatus);
-        spe.commit();
+        PreferenceStore.get(c).putInt(c.getString(R.string.pref_location_status_key),
+                locationStatus);
+        PreferenceSnapshot.refresh(c);
     }
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
 
+import com.example.android.sunshine.app.UpdateFingerprints;
 import com.example.android.sunshine.app.Utility;
 import com.example.android.sunshine.app.data.WeatherContract;
 import com.example.android.sunshine.app.sync.SunshineSyncAdapter;
@@ -57,6 +58,12 @@ public class TodayWearableIntentService extends IntentService implements DataApi
     private static final int INDEX_MIN_TEMP = 3;
     private GoogleApiClient mGoogleApiClient;
 
+    // What to send once connected, read before connecting so an unchanged update never connects
+    private String mHigh;
+    private String mLow;
+    private int mWeatherId;
+    private String mFingerprint;
+
     public TodayWearableIntentService() {
         super("TodayWearableIntentService");
     }
@@ -65,6 +72,13 @@ public class TodayWearableIntentService extends IntentService implements DataApi
     protected void onHandleIntent(Intent intent) {
 
         if (SunshineSyncAdapter.ACTION_DATA_UPDATED.equals(intent.getAction())) {
+            if (!readWeatherUpdate()) {
+                return;
+            }
+            if (UpdateFingerprints.isUnchanged(this, UpdateFingerprints.WEARABLE, mFingerprint)) {
+                Log.d(TAG, "Wearable weather unchanged");
+                return;
+            }
             Log.d(TAG, "Updating wearable weather...");
             mGoogleApiClient = new GoogleApiClient.Builder(this)
                     .addApi(Wearable.API)
@@ -80,7 +94,7 @@ public class TodayWearableIntentService extends IntentService implements DataApi
     }
 
 
-    private void sendWeatherUpdate() {
+    private boolean readWeatherUpdate() {
         // Get today's data from the ContentProvider
         String location = Utility.getPreferredLocation(this);
         Uri weatherForLocationUri = WeatherContract.WeatherEntry.buildWeatherLocationWithStartDate(
@@ -88,30 +102,32 @@ public class TodayWearableIntentService extends IntentService implements DataApi
         Cursor data = getContentResolver().query(weatherForLocationUri, FORECAST_COLUMNS, null,
                 null, WeatherContract.WeatherEntry.COLUMN_DATE + " ASC");
         if (data == null) {
-            return;
+            return false;
         }
         if (!data.moveToFirst()) {
             data.close();
-            return;
+            return false;
         }
 
         // Extract the weather data from the Cursor
         int weatherId = data.getInt(INDEX_WEATHER_ID);
-        int weatherArtResourceId = Utility.getArtResourceForWeatherCondition(weatherId);
         Log.d(TAG, " Art=" + weatherId);
-        String description = data.getString(INDEX_SHORT_DESC);
         double maxTemp = data.getDouble(INDEX_MAX_TEMP);
         double minTemp = data.getDouble(INDEX_MIN_TEMP);
         String formattedMaxTemperature = Utility.formatTemperature(this, maxTemp);
         String formattedMinTemperature = Utility.formatTemperature(this, minTemp);
         data.close();
 
-        Log.d(TAG, "Sending weather report data... high=" + formattedMaxTemperature + " low=" + formattedMinTemperature + " art=" + weatherId);
-        sendWeatherData(formattedMaxTemperature, formattedMinTemperature, weatherId);
-
+        mHigh = formattedMaxTemperature;
+        mLow = formattedMinTemperature;
+        mWeatherId = weatherId;
+        // Exactly what the data item carries
+        mFingerprint = mHigh + "\n" + mLow + "\n" + mWeatherId;
+        return true;
     }
 
-    private void sendWeatherData(String high, String low, int weatherId) {
+    private void sendWeatherData(String high, String low, int weatherId,
+                                 final String fingerprint) {
         PutDataMapRequest putDataMapRequest = PutDataMapRequest.create("/weather-update");
         putDataMapRequest.getDataMap().putString("high", high);
         putDataMapRequest.getDataMap().putString("low", low);
@@ -125,6 +141,8 @@ public class TodayWearableIntentService extends IntentService implements DataApi
             public void onResult(@NonNull DataApi.DataItemResult dataItemResult) {
                 if (dataItemResult.getStatus().isSuccess()) {
                     Log.d(TAG, "Message sent successfully to wearable");
+                    UpdateFingerprints.markPublished(TodayWearableIntentService.this,
+                            UpdateFingerprints.WEARABLE, fingerprint);
                 } else {
                     Log.e(TAG, "Message transfer failed.");
                 }
@@ -139,7 +157,8 @@ public class TodayWearableIntentService extends IntentService implements DataApi
 
         Log.d(TAG, "Connected to Google api...");
         Wearable.DataApi.addListener(mGoogleApiClient, this);
-        sendWeatherUpdate();
+        Log.d(TAG, "Sending weather report data... high=" + mHigh + " low=" + mLow + " art=" + mWeatherId);
+        sendWeatherData(mHigh, mLow, mWeatherId, mFingerprint);
     }
 
     @Override
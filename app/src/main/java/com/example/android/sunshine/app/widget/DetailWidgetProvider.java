@@ -7,6 +7,9 @@ import android.appwidget.AppWidgetProvider;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.AsyncTask;
 import android.os.Build;
 import android.support.annotation.NonNull;
 import android.support.v4.app.TaskStackBuilder;
@@ -15,6 +18,9 @@ import android.widget.RemoteViews;
 import com.example.android.sunshine.app.DetailActivity;
 import com.example.android.sunshine.app.MainActivity;
 import com.example.android.sunshine.app.R;
+import com.example.android.sunshine.app.UpdateFingerprints;
+import com.example.android.sunshine.app.Utility;
+import com.example.android.sunshine.app.data.WeatherContract;
 import com.example.android.sunshine.app.sync.SunshineSyncAdapter;
 
 /**
@@ -22,6 +28,20 @@ import com.example.android.sunshine.app.sync.SunshineSyncAdapter;
  */
 @TargetApi(Build.VERSION_CODES.HONEYCOMB)
 public class DetailWidgetProvider extends AppWidgetProvider {
+    private static final String[] FORECAST_COLUMNS = {
+            WeatherContract.WeatherEntry.COLUMN_DATE,
+            WeatherContract.WeatherEntry.COLUMN_WEATHER_ID,
+            WeatherContract.WeatherEntry.COLUMN_SHORT_DESC,
+            WeatherContract.WeatherEntry.COLUMN_MAX_TEMP,
+            WeatherContract.WeatherEntry.COLUMN_MIN_TEMP
+    };
+    // these indices must match the projection
+    private static final int INDEX_WEATHER_DATE = 0;
+    private static final int INDEX_WEATHER_CONDITION_ID = 1;
+    private static final int INDEX_WEATHER_DESC = 2;
+    private static final int INDEX_WEATHER_MAX_TEMP = 3;
+    private static final int INDEX_WEATHER_MIN_TEMP = 4;
+
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
         // Perform this loop procedure for each App Widget that belongs to this provider
         for (int appWidgetId : appWidgetIds) {
@@ -58,11 +78,74 @@ public class DetailWidgetProvider extends AppWidgetProvider {
     public void onReceive(@NonNull Context context, @NonNull Intent intent) {
         super.onReceive(context, intent);
         if (SunshineSyncAdapter.ACTION_DATA_UPDATED.equals(intent.getAction())) {
-            AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
-            int[] appWidgetIds = appWidgetManager.getAppWidgetIds(
-                    new ComponentName(context, getClass()));
-            appWidgetManager.notifyAppWidgetViewDataChanged(appWidgetIds, R.id.widget_list);
+            // Having the lists reload costs every widget a query and its icons, so first check
+            // off the main thread whether the sync changed any of the rows
+            final Context appContext = context.getApplicationContext();
+            final PendingResult result = goAsync();
+            AsyncTask.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        notifyIfChanged(appContext);
+                    } finally {
+                        result.finish();
+                    }
+                }
+            });
+        }
+    }
+
+    private void notifyIfChanged(Context context) {
+        String fingerprint = getFingerprint(context);
+        if (fingerprint != null && UpdateFingerprints.isUnchanged(context,
+                UpdateFingerprints.DETAIL_WIDGET, fingerprint)) {
+            return;
+        }
+        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+        int[] appWidgetIds = appWidgetManager.getAppWidgetIds(
+                new ComponentName(context, getClass()));
+        appWidgetManager.notifyAppWidgetViewDataChanged(appWidgetIds, R.id.widget_list);
+        if (fingerprint != null) {
+            UpdateFingerprints.markPublished(context, UpdateFingerprints.DETAIL_WIDGET,
+                    fingerprint);
+        }
+    }
+
+    /**
+     * Everything the rows show, as DetailWidgetRemoteViewsService shows it, or null if the
+     * forecast couldn't be read.
+     */
+    private static String getFingerprint(Context context) {
+        String location = Utility.getPreferredLocation(context);
+        Uri weatherForLocationUri = WeatherContract.WeatherEntry
+                .buildWeatherLocationWithStartDate(location, System.currentTimeMillis());
+        Cursor data = context.getContentResolver().query(weatherForLocationUri,
+                FORECAST_COLUMNS, null, null, WeatherContract.WeatherEntry.COLUMN_DATE + " ASC");
+        if (data == null) {
+            return null;
+        }
+        // Today decides how the dates read, the art pack which icons show
+        StringBuilder fingerprint = new StringBuilder()
+                .append(location).append('\n')
+                .append(UpdateFingerprints.getToday()).append('\n')
+                .append(Utility.usingLocalGraphics(context)).append('\n');
+        try {
+            while (data.moveToNext()) {
+                int weatherId = data.getInt(INDEX_WEATHER_CONDITION_ID);
+                fingerprint.append(data.getLong(INDEX_WEATHER_DATE)).append('\t')
+                        .append(weatherId).append('\t')
+                        .append(Utility.getArtUrlForWeatherCondition(context, weatherId))
+                        .append('\t')
+                        .append(data.getString(INDEX_WEATHER_DESC)).append('\t')
+                        .append(Utility.formatTemperature(context,
+                                data.getDouble(INDEX_WEATHER_MAX_TEMP))).append('\t')
+                        .append(Utility.formatTemperature(context,
+                                data.getDouble(INDEX_WEATHER_MIN_TEMP))).append('\n');
+            }
+        } finally {
+            data.close();
         }
+        return fingerprint.toString();
     }
 
     /**
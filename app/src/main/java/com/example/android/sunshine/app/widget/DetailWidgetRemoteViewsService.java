@@ -1,24 +1,23 @@
 package com.example.android.sunshine.app.widget;
 
 import android.annotation.TargetApi;
+import android.content.Context;
 import android.content.Intent;
 import android.database.Cursor;
 import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Binder;
 import android.os.Build;
-import android.util.Log;
 import android.widget.AdapterView;
 import android.widget.RemoteViews;
 import android.widget.RemoteViewsService;
 
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.request.target.Target;
 import com.example.android.sunshine.app.R;
 import com.example.android.sunshine.app.Utility;
 import com.example.android.sunshine.app.data.WeatherContract;
 
-import java.util.concurrent.ExecutionException;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * RemoteViewsService controlling the data being shown in the scrollable weather detail widget
@@ -42,10 +41,63 @@ public class DetailWidgetRemoteViewsService extends RemoteViewsService {
     static final int INDEX_WEATHER_MAX_TEMP = 4;
     static final int INDEX_WEATHER_MIN_TEMP = 5;
 
+    /**
+     * The rows the widget shows, copied out of the cursor with everything getViewAt sets already
+     * formatted, so the cursor can be closed as soon as they're read.
+     */
+    private static class Rows {
+        final int count;
+        final long[] ids;
+        final int[] iconResourceIds;
+        final String[] artUrls;
+        final String[] descriptions;
+        final String[] dates;
+        final String[] highs;
+        final String[] lows;
+        final Uri[] uris;
+
+        static final Rows EMPTY = new Rows(0);
+
+        private Rows(int count) {
+            this.count = count;
+            ids = new long[count];
+            iconResourceIds = new int[count];
+            artUrls = new String[count];
+            descriptions = new String[count];
+            dates = new String[count];
+            highs = new String[count];
+            lows = new String[count];
+            uris = new Uri[count];
+        }
+
+        static Rows read(Context context, String location, Cursor data) {
+            boolean usingLocalGraphics = Utility.usingLocalGraphics(context);
+            Rows rows = new Rows(data.getCount());
+            for (int i = 0; i < rows.count && data.moveToPosition(i); i++) {
+                int weatherId = data.getInt(INDEX_WEATHER_CONDITION_ID);
+                long dateInMillis = data.getLong(INDEX_WEATHER_DATE);
+                rows.ids[i] = data.getLong(INDEX_WEATHER_ID);
+                rows.iconResourceIds[i] = Utility.getIconResourceForWeatherCondition(weatherId);
+                rows.artUrls[i] = usingLocalGraphics
+                        ? null : Utility.getArtUrlForWeatherCondition(context, weatherId);
+                rows.descriptions[i] = data.getString(INDEX_WEATHER_DESC);
+                rows.dates[i] = Utility.getFriendlyDayString(context, dateInMillis, false);
+                rows.highs[i] = Utility.formatTemperature(context,
+                        data.getDouble(INDEX_WEATHER_MAX_TEMP));
+                rows.lows[i] = Utility.formatTemperature(context,
+                        data.getDouble(INDEX_WEATHER_MIN_TEMP));
+                rows.uris[i] = WeatherContract.WeatherEntry.buildWeatherLocationWithDate(
+                        location, dateInMillis);
+            }
+            return rows;
+        }
+    }
+
     @Override
     public RemoteViewsFactory onGetViewFactory(Intent intent) {
         return new RemoteViewsFactory() {
-            private Cursor data = null;
+            // Replaced whole by onDataSetChanged while the host may be reading it
+            private volatile Rows rows = Rows.EMPTY;
 
             @Override
             public void onCreate() {
@@ -54,92 +106,88 @@ public class DetailWidgetRemoteViewsService extends RemoteViewsService {
 
             @Override
             public void onDataSetChanged() {
-                if (data != null) {
-                    data.close();
-                }
                 // This method is called by the app hosting the widget (e.g., the launcher)
                 // However, our ContentProvider is not exported so it doesn't have access to the
                 // data. Therefore we need to clear (and finally restore) the calling identity so
                 // that calls use our process and permission
                 final long identityToken = Binder.clearCallingIdentity();
-                String location = Utility.getPreferredLocation(DetailWidgetRemoteViewsService.this);
-                Uri weatherForLocationUri = WeatherContract.WeatherEntry
-                        .buildWeatherLocationWithStartDate(location, System.currentTimeMillis());
-                data = getContentResolver().query(weatherForLocationUri,
-                        FORECAST_COLUMNS,
-                        null,
-                        null,
-                        WeatherContract.WeatherEntry.COLUMN_DATE + " ASC");
-                Binder.restoreCallingIdentity(identityToken);
+                Rows newRows = Rows.EMPTY;
+                try {
+                    String location =
+                            Utility.getPreferredLocation(DetailWidgetRemoteViewsService.this);
+                    Uri weatherForLocationUri = WeatherContract.WeatherEntry
+                            .buildWeatherLocationWithStartDate(location,
+                                    System.currentTimeMillis());
+                    Cursor data = getContentResolver().query(weatherForLocationUri,
+                            FORECAST_COLUMNS,
+                            null,
+                            null,
+                            WeatherContract.WeatherEntry.COLUMN_DATE + " ASC");
+                    if (data != null) {
+                        try {
+                            newRows = Rows.read(DetailWidgetRemoteViewsService.this, location,
+                                    data);
+                        } finally {
+                            data.close();
+                        }
+                    }
+                } finally {
+                    Binder.restoreCallingIdentity(identityToken);
+                }
+                loadIcons(newRows);
+                rows = newRows;
+            }
+
+            // Decodes every row's icon now, so getViewAt never waits on one
+            private void loadIcons(Rows newRows) {
+                Set<String> artUrls = new HashSet<String>();
+                for (String artUrl : newRows.artUrls) {
+                    if (artUrl != null) {
+                        artUrls.add(artUrl);
+                    }
+                }
+                if (!artUrls.isEmpty()) {
+                    WidgetIcons.loadAll(DetailWidgetRemoteViewsService.this, artUrls);
+                }
             }
 
             @Override
             public void onDestroy() {
-                if (data != null) {
-                    data.close();
-                    data = null;
-                }
+                rows = Rows.EMPTY;
             }
 
             @Override
             public int getCount() {
-                return data == null ? 0 : data.getCount();
+                return rows.count;
             }
 
             @Override
             public RemoteViews getViewAt(int position) {
-                if (position == AdapterView.INVALID_POSITION ||
-                        data == null || !data.moveToPosition(position)) {
+                Rows rows = this.rows;
+                if (position == AdapterView.INVALID_POSITION || position >= rows.count) {
                     return null;
                 }
                 RemoteViews views = new RemoteViews(getPackageName(),
                         R.layout.widget_detail_list_item);
-                int weatherId = data.getInt(INDEX_WEATHER_CONDITION_ID);
-                int weatherArtResourceId = Utility.getIconResourceForWeatherCondition(weatherId);
-                Bitmap weatherArtImage = null;
-                if ( !Utility.usingLocalGraphics(DetailWidgetRemoteViewsService.this) ) {
-                    String weatherArtResourceUrl = Utility.getArtUrlForWeatherCondition(
-                            DetailWidgetRemoteViewsService.this, weatherId);
-                    try {
-                        weatherArtImage = Glide.with(DetailWidgetRemoteViewsService.this)
-                                .load(weatherArtResourceUrl)
-                                .asBitmap()
-                                .error(weatherArtResourceId)
-                                .into(Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL).get();
-                    } catch (InterruptedException | ExecutionException e) {
-                        Log.e(LOG_TAG, "Error retrieving large icon from " + weatherArtResourceUrl, e);
-                    }
-                }
-                String description = data.getString(INDEX_WEATHER_DESC);
-                long dateInMillis = data.getLong(INDEX_WEATHER_DATE);
-                String formattedDate = Utility.getFriendlyDayString(
-                        DetailWidgetRemoteViewsService.this, dateInMillis, false);
-                double maxTemp = data.getDouble(INDEX_WEATHER_MAX_TEMP);
-                double minTemp = data.getDouble(INDEX_WEATHER_MIN_TEMP);
-                String formattedMaxTemperature =
-                        Utility.formatTemperature(DetailWidgetRemoteViewsService.this, maxTemp);
-                String formattedMinTemperature =
-                        Utility.formatTemperature(DetailWidgetRemoteViewsService.this, minTemp);
+                // Loaded by onDataSetChanged; the built in icon stands in if it failed
+                Bitmap weatherArtImage = rows.artUrls[position] != null
+                        ? WidgetIcons.get(rows.artUrls[position]) : null;
                 if (weatherArtImage != null) {
                     views.setImageViewBitmap(R.id.widget_icon, weatherArtImage);
                 } else {
-                    views.setImageViewResource(R.id.widget_icon, weatherArtResourceId);
+                    views.setImageViewResource(R.id.widget_icon, rows.iconResourceIds[position]);
                 }
+                String description = rows.descriptions[position];
                 if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH_MR1) {
                     setRemoteContentDescription(views, description);
                 }
-                views.setTextViewText(R.id.widget_date, formattedDate);
+                views.setTextViewText(R.id.widget_date, rows.dates[position]);
                 views.setTextViewText(R.id.widget_description, description);
-                views.setTextViewText(R.id.widget_high_temperature, formattedMaxTemperature);
-                views.setTextViewText(R.id.widget_low_temperature, formattedMinTemperature);
+                views.setTextViewText(R.id.widget_high_temperature, rows.highs[position]);
+                views.setTextViewText(R.id.widget_low_temperature, rows.lows[position]);
 
                 final Intent fillInIntent = new Intent();
-                String locationSetting =
-                        Utility.getPreferredLocation(DetailWidgetRemoteViewsService.this);
-                Uri weatherUri = WeatherContract.WeatherEntry.buildWeatherLocationWithDate(
-                        locationSetting,
-                        dateInMillis);
-                fillInIntent.setData(weatherUri);
+                fillInIntent.setData(rows.uris[position]);
                 views.setOnClickFillInIntent(R.id.widget_list_item, fillInIntent);
                 return views;
             }
@@ -161,8 +209,9 @@ public class DetailWidgetRemoteViewsService extends RemoteViewsService {
 
             @Override
             public long getItemId(int position) {
-                if (data.moveToPosition(position))
-                    return data.getLong(INDEX_WEATHER_ID);
+                Rows rows = this.rows;
+                if (position >= 0 && position < rows.count)
+                    return rows.ids[position];
                 return position;
             }
 
@@ -26,16 +26,26 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.util.DisplayMetrics;
+import android.util.SparseArray;
 import android.util.TypedValue;
 import android.widget.RemoteViews;
 
 import com.example.android.sunshine.app.MainActivity;
 import com.example.android.sunshine.app.R;
+import com.example.android.sunshine.app.UpdateFingerprints;
 import com.example.android.sunshine.app.Utility;
 import com.example.android.sunshine.app.data.WeatherContract;
+import com.example.android.sunshine.app.sync.SunshineSyncAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * IntentService which handles updating all Today widgets with the latest data
+ *
+ * Widgets of the same size bucket share one layout, so each layout's RemoteViews is built once
+ * and sent to all of its widgets in one update.  A widget already showing the same content in
+ * the same layout, say after a resize within its bucket, isn't sent anything.
  */
 public class TodayWidgetIntentService extends IntentService {
     private static final String[] FORECAST_COLUMNS = {
@@ -50,6 +60,9 @@ public class TodayWidgetIntentService extends IntentService {
     private static final int INDEX_MAX_TEMP = 2;
     private static final int INDEX_MIN_TEMP = 3;
 
+    // The layout and content each widget was last sent, for as long as the process lives
+    private static final SparseArray<String> sShown = new SparseArray<String>();
+
     public TodayWidgetIntentService() {
         super("TodayWidgetIntentService");
     }
@@ -85,21 +98,48 @@ public class TodayWidgetIntentService extends IntentService {
         String formattedMinTemperature = Utility.formatTemperature(this, minTemp);
         data.close();
 
-        // Perform this loop procedure for each Today widget
-        for (int appWidgetId : appWidgetIds) {
-            // Find the correct layout based on the widget's width
-            int widgetWidth = getWidgetWidth(appWidgetManager, appWidgetId);
-            int defaultWidth = getResources().getDimensionPixelSize(R.dimen.widget_today_default_width);
-            int largeWidth = getResources().getDimensionPixelSize(R.dimen.widget_today_large_width);
-            int layoutId;
-            if (widgetWidth >= largeWidth) {
-                layoutId = R.layout.widget_today_large;
-            } else if (widgetWidth >= defaultWidth) {
-                layoutId = R.layout.widget_today;
-            } else {
-                layoutId = R.layout.widget_today_small;
+        // What every widget shows, whatever its size
+        String content = weatherArtResourceId + "\n" + description + "\n"
+                + formattedMaxTemperature + "\n" + formattedMinTemperature;
+
+        // A sync that left today's weather as it was changes nothing any widget shows. Widgets
+        // the host asks about, added or resized ones, are still sent their views.
+        if (SunshineSyncAdapter.ACTION_DATA_UPDATED.equals(intent.getAction())
+                && UpdateFingerprints.isUnchanged(this, UpdateFingerprints.TODAY_WIDGET,
+                content)) {
+            return;
+        }
+
+        // At most three layouts exist, so group the widgets by layout, leaving out those
+        // already showing this content in that layout
+        SparseArray<List<Integer>> widgetsByLayout = new SparseArray<List<Integer>>();
+        synchronized (sShown) {
+            for (int appWidgetId : appWidgetIds) {
+                int layoutId = getLayoutId(getWidgetWidth(appWidgetManager, appWidgetId));
+                String shown = layoutId + "\n" + content;
+                if (shown.equals(sShown.get(appWidgetId))) {
+                    continue;
+                }
+                sShown.put(appWidgetId, shown);
+                List<Integer> widgets = widgetsByLayout.get(layoutId);
+                if (widgets == null) {
+                    widgets = new ArrayList<Integer>();
+                    widgetsByLayout.put(layoutId, widgets);
+                }
+                widgets.add(appWidgetId);
             }
-            RemoteViews views = new RemoteViews(getPackageName(), layoutId);
+        }
+        if (widgetsByLayout.size() == 0) {
+            return;
+        }
+
+        // Create an Intent to launch MainActivity
+        Intent launchIntent = new Intent(this, MainActivity.class);
+        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, launchIntent, 0);
+
+        // Build each layout's views once, and update all of its widgets with them together
+        for (int i = 0; i < widgetsByLayout.size(); i++) {
+            RemoteViews views = new RemoteViews(getPackageName(), widgetsByLayout.keyAt(i));
 
             // Add the data to the RemoteViews
             views.setImageViewResource(R.id.widget_icon, weatherArtResourceId);
@@ -110,14 +150,38 @@ public class TodayWidgetIntentService extends IntentService {
             views.setTextViewText(R.id.widget_description, description);
             views.setTextViewText(R.id.widget_high_temperature, formattedMaxTemperature);
             views.setTextViewText(R.id.widget_low_temperature, formattedMinTemperature);
-
-            // Create an Intent to launch MainActivity
-            Intent launchIntent = new Intent(this, MainActivity.class);
-            PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, launchIntent, 0);
             views.setOnClickPendingIntent(R.id.widget, pendingIntent);
 
-            // Tell the AppWidgetManager to perform an update on the current app widget
-            appWidgetManager.updateAppWidget(appWidgetId, views);
+            // Tell the AppWidgetManager to perform an update on these app widgets
+            List<Integer> widgets = widgetsByLayout.valueAt(i);
+            int[] ids = new int[widgets.size()];
+            for (int j = 0; j < ids.length; j++) {
+                ids[j] = widgets.get(j);
+            }
+            appWidgetManager.updateAppWidget(ids, views);
+        }
+        UpdateFingerprints.markPublished(this, UpdateFingerprints.TODAY_WIDGET, content);
+    }
+
+    /**
+     * Forgets what a widget was last sent, so the next update sends it again.
+     */
+    static void forgetWidget(int appWidgetId) {
+        synchronized (sShown) {
+            sShown.delete(appWidgetId);
+        }
+    }
+
+    // Find the correct layout based on the widget's width
+    private int getLayoutId(int widgetWidth) {
+        int defaultWidth = getResources().getDimensionPixelSize(R.dimen.widget_today_default_width);
+        int largeWidth = getResources().getDimensionPixelSize(R.dimen.widget_today_large_width);
+        if (widgetWidth >= largeWidth) {
+            return R.layout.widget_today_large;
+        } else if (widgetWidth >= defaultWidth) {
+            return R.layout.widget_today;
+        } else {
+            return R.layout.widget_today_small;
         }
     }
 
@@ -34,9 +34,20 @@ public class TodayWidgetProvider extends AppWidgetProvider {
 
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        // The host is asking for these widgets' views, so send them even if unchanged
+        for (int appWidgetId : appWidgetIds) {
+            TodayWidgetIntentService.forgetWidget(appWidgetId);
+        }
         context.startService(new Intent(context, TodayWidgetIntentService.class));
     }
 
+    @Override
+    public void onDeleted(Context context, int[] appWidgetIds) {
+        for (int appWidgetId : appWidgetIds) {
+            TodayWidgetIntentService.forgetWidget(appWidgetId);
+        }
+    }
+
     @Override
     public void onAppWidgetOptionsChanged(Context context, AppWidgetManager appWidgetManager,
                                           int appWidgetId, Bundle newOptions) {
@@ -47,7 +58,9 @@ public class TodayWidgetProvider extends AppWidgetProvider {
     public void onReceive(@NonNull Context context, @NonNull Intent intent) {
         super.onReceive(context, intent);
         if (SunshineSyncAdapter.ACTION_DATA_UPDATED.equals(intent.getAction())) {
-            context.startService(new Intent(context, TodayWidgetIntentService.class));
+            // The service skips data updates that leave the widgets as they are
+            context.startService(new Intent(context, TodayWidgetIntentService.class)
+                    .setAction(SunshineSyncAdapter.ACTION_DATA_UPDATED));
         }
     }
 }
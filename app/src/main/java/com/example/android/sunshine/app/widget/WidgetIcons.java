@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app.widget;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.request.FutureTarget;
+import com.example.android.sunshine.app.ArtRequests;
+import com.example.android.sunshine.core.WeatherConditions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Art pack icons for the detail widget's rows, decoded at the size the rows show them and kept
+ * by url.  A forecast only has a handful of different conditions, so the rows mostly share a
+ * few icons, and every widget shares this cache.
+ *
+ * The factory loads everything its rows need in one go from onDataSetChanged, after which
+ * getViewAt only looks icons up.
+ */
+class WidgetIcons {
+    private static final String LOG_TAG = WidgetIcons.class.getSimpleName();
+
+    // Every icon of two art packs: the one in use, and the one before a switch
+    private static final int MAX_ICONS = 2 * WeatherConditions.GROUP_COUNT;
+
+    private static final LruCache<String, Bitmap> sIcons = new LruCache<String, Bitmap>(MAX_ICONS);
+
+    /**
+     * Loads the icons that aren't already cached, all at once, and waits for them.  Must not be
+     * called on the main thread.
+     */
+    static void loadAll(Context context, Collection<String> urls) {
+        RequestManager glide = Glide.with(context.getApplicationContext());
+        int size = ArtRequests.getListIconSize(context);
+
+        // Start every request before waiting on any, so they load in parallel
+        List<String> loading = new ArrayList<String>();
+        List<FutureTarget<Bitmap>> targets = new ArrayList<FutureTarget<Bitmap>>();
+        for (String url : urls) {
+            if (sIcons.get(url) == null && !loading.contains(url)) {
+                loading.add(url);
+                targets.add(ArtRequests.loadWidgetIcon(glide, url, size));
+            }
+        }
+
+        for (int i = 0; i < targets.size(); i++) {
+            FutureTarget<Bitmap> target = targets.get(i);
+            try {
+                Bitmap bitmap = target.get();
+                // Glide recycles its bitmaps once the target is cleared, so keep a copy
+                Bitmap.Config config = bitmap.getConfig() != null
+                        ? bitmap.getConfig() : Bitmap.Config.ARGB_8888;
+                sIcons.put(loading.get(i), bitmap.copy(config, false));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Log.w(LOG_TAG, "Interrupted loading " + loading.get(i));
+            } catch (ExecutionException e) {
+                Log.e(LOG_TAG, "Error retrieving icon from " + loading.get(i), e);
+            } finally {
+                target.clear();
+            }
+        }
+    }
+
+    /**
+     * The icon for a url, or null if it isn't loaded.
+     */
+    static Bitmap get(String url) {
+        return sIcons.get(url);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ForecastDiffTest {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    // A row for the nth day, with a high that can be varied to change its content
+    private static ForecastRow row(int day, int high) {
+        ForecastDay forecastDay = new ForecastDay(day * DAY, 800, high, 10, 50, 1000, 2, 90);
+        return new ForecastRow(forecastDay, "Day " + day, "Day " + day, "Clear", "Clear",
+                high + "", "High " + high, "10", "Low 10", null);
+    }
+
+    // Rows for days first to last, each with a high of 20
+    private static ForecastRow[] days(int first, int last) {
+        ForecastRow[] rows = new ForecastRow[last - first + 1];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = row(first + i, 20);
+        }
+        return rows;
+    }
+
+    @Test
+    public void identicalRowsNeedNoUpdates() {
+        ForecastDiff diff = ForecastDiff.calculate(days(0, 13), days(0, 13));
+        assertTrue(diff.isEmpty());
+        assertEquals("", diff.toString());
+    }
+
+    @Test
+    public void changedDayIsAChange() {
+        ForecastRow[] newRows = days(0, 13);
+        newRows[4] = row(4, 25);
+        ForecastDiff diff = ForecastDiff.calculate(days(0, 13), newRows);
+        assertFalse(diff.isEmpty());
+        assertEquals("change 4+1", diff.toString());
+    }
+
+    @Test
+    public void dayRollingOffTheFrontIsARemove() {
+        ForecastDiff diff = ForecastDiff.calculate(days(0, 13), days(1, 13));
+        assertEquals("remove 0+1", diff.toString());
+    }
+
+    @Test
+    public void daysAppendedAtTheEndAreOneInsert() {
+        ForecastDiff diff = ForecastDiff.calculate(days(0, 6), days(0, 9));
+        assertEquals("insert 7+3", diff.toString());
+    }
+
+    @Test
+    public void nextDaysForecastRemovesInsertsAndChanges() {
+        // What a sync a day later looks like: today rolls off, a day is added and one changes
+        ForecastRow[] newRows = days(1, 14);
+        newRows[2] = row(3, 30);
+        ForecastDiff diff = ForecastDiff.calculate(days(0, 13), newRows);
+        assertEquals("remove 0+1, change 2+1, insert 13+1", diff.toString());
+    }
+}
@@ -0,0 +1,96 @@
+#!/bin/bash
+#
+# Copyright (C) 2015 The Android Open Source Project
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#      http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+# Cold starts MainActivity a number of times and reports the time to the first drawn frame
+# and to the first drawn forecast row, which MainActivity reports with reportFullyDrawn
+# (KitKat and up).  Install the app and let it sync once first, so there is a forecast to draw:
+#
+#   ./gradlew :app:installDebug
+#   benchmark/coldstart.sh [runs]
+#
+# Results are printed, and written as JSON to benchmark/build/coldstart-<timestamp>.json.
+
+set -e
+
+PACKAGE=com.example.android.sunshine.app
+ACTIVITY=$PACKAGE/.MainActivity
+RUNS=${1:-10}
+# How long to wait for "Fully drawn" after the activity has started
+FULLY_DRAWN_TIMEOUT_SECONDS=10
+
+displayed=()
+fully_drawn=()
+
+# Converts the "+1s234ms" ActivityManager logs to milliseconds
+to_millis() {
+    echo "$1" | sed -E 's/^\+//; s/^([0-9]+)s([0-9]+)ms$/\1 \2/; s/^([0-9]+)ms$/0 \1/' \
+        | awk '{ print $1 * 1000 + $2 }'
+}
+
+percentile() {
+    local p=$1
+    shift
+    printf '%s\n' "$@" | sort -n | awk -v p="$p" '{ v[NR] = $1 }
+        END { i = int((NR - 1) * p / 100) + 1; print v[i] }'
+}
+
+for ((run = 1; run <= RUNS; run++)); do
+    adb shell am force-stop $PACKAGE
+    sleep 1
+    adb logcat -c
+
+    total=$(adb shell am start -W -n $ACTIVITY | tr -d '\r' | awk -F': ' '/TotalTime/ { print $2 }')
+
+    drawn=""
+    for ((wait = 0; wait < FULLY_DRAWN_TIMEOUT_SECONDS * 2; wait++)); do
+        drawn=$(adb logcat -d | tr -d '\r' \
+            | sed -nE "s#.*Fully drawn $ACTIVITY: (\+[0-9sm]+).*#\1#p" | head -n 1)
+        if [ -n "$drawn" ]; then
+            break
+        fi
+        sleep 0.5
+    done
+    if [ -z "$drawn" ]; then
+        echo "Run $run: no forecast drawn within ${FULLY_DRAWN_TIMEOUT_SECONDS}s" >&2
+        exit 1
+    fi
+
+    displayed+=("$total")
+    fully_drawn+=("$(to_millis "$drawn")")
+    echo "Run $run: first frame ${total}ms, first forecast row ${fully_drawn[$((run - 1))]}ms"
+done
+
+echo
+for name in displayed fully_drawn; do
+    eval "values=(\"\${$name[@]}\")"
+    echo "$name: median $(percentile 50 "${values[@]}")ms," \
+        "p90 $(percentile 90 "${values[@]}")ms over $RUNS runs"
+done
+
+out_dir=$(dirname "$0")/build
+mkdir -p "$out_dir"
+out_file=$out_dir/coldstart-$(date +%s).json
+join() { local IFS=,; echo "$*"; }
+cat > "$out_file" <<EOF
+{
+  "device": "$(adb shell getprop ro.product.model | tr -d '\r')",
+  "sdk": $(adb shell getprop ro.build.version.sdk | tr -d '\r'),
+  "runs": $RUNS,
+  "displayedMillis": [$(join "${displayed[@]}")],
+  "firstForecastRowMillis": [$(join "${fully_drawn[@]}")]
+}
+EOF
+echo "Wrote $out_file"
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.benchmark;
+
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Collects benchmark results and writes them as JSON, so runs from different commits can be
+ * diffed or fed to a script.  Each report is written twice, once with a timestamp and once as
+ * name-latest.json, to the target app's external files directory:
+ *
+ *   adb pull /sdcard/Android/data/com.example.android.sunshine.app/files/benchmark
+ */
+public class BenchmarkReport {
+    private static final String LOG_TAG = BenchmarkReport.class.getSimpleName();
+
+    private final String mName;
+    private final JSONObject mReport = new JSONObject();
+    private final JSONArray mResults = new JSONArray();
+
+    public BenchmarkReport(String name) {
+        mName = name;
+        try {
+            mReport.put("benchmark", name);
+            mReport.put("timestamp", System.currentTimeMillis());
+            JSONObject device = new JSONObject();
+            device.put("model", Build.MODEL);
+            device.put("sdk", Build.VERSION.SDK_INT);
+            device.put("fingerprint", Build.FINGERPRINT);
+            mReport.put("device", device);
+            mReport.put("results", mResults);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Adds a key describing the whole run, such as the storage engine in use.
+     */
+    public void putInfo(String key, Object value) {
+        try {
+            mReport.put(key, value);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Starts a new result row.  Fill it in with the returned object.
+     */
+    public JSONObject addResult(String scenario) {
+        JSONObject result = new JSONObject();
+        try {
+            result.put("scenario", scenario);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        mResults.put(result);
+        return result;
+    }
+
+    /**
+     * Puts the median, 95th percentile and maximum of a set of nanosecond timings into result,
+     * in microseconds, as key_p50_us and so on.
+     */
+    public static void putPercentiles(JSONObject result, String key, long[] nanos)
+            throws JSONException {
+        if (nanos.length == 0) {
+            return;
+        }
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        result.put(key + "_p50_us", sorted[sorted.length / 2] / 1000);
+        result.put(key + "_p95_us", sorted[(int) Math.min(sorted.length - 1,
+                Math.ceil(sorted.length * 0.95) - 1)] / 1000);
+        result.put(key + "_max_us", sorted[sorted.length - 1] / 1000);
+    }
+
+    public File write(Context context) throws IOException {
+        File directory = context.getExternalFilesDir(null);
+        if (directory == null) {
+            directory = context.getFilesDir();
+        }
+        directory = new File(directory, "benchmark");
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+
+        String json;
+        try {
+            json = mReport.toString(2);
+        } catch (JSONException e) {
+            throw new IOException(e.toString());
+        }
+        File file = new File(directory, mName + "-" + System.currentTimeMillis() + ".json");
+        writeFile(file, json);
+        writeFile(new File(directory, mName + "-latest.json"), json);
+        Log.i(LOG_TAG, "Wrote " + file);
+        return file;
+    }
+
+    private static void writeFile(File file, String contents) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.benchmark;
+
+import android.os.Bundle;
+import android.test.InstrumentationTestRunner;
+
+/**
+ * Keeps the arguments passed with "am instrument -e", so benchmarks can read them on every
+ * API level.
+ */
+public class BenchmarkRunner extends InstrumentationTestRunner {
+
+    private static Bundle sArguments = new Bundle();
+
+    @Override
+    public void onCreate(Bundle arguments) {
+        if (arguments != null) {
+            sArguments = arguments;
+        }
+        super.onCreate(arguments);
+    }
+
+    /**
+     * Returns the comma separated integers of an argument, or defaultValues if it wasn't given.
+     */
+    public static int[] getIntArrayArgument(String name, int[] defaultValues) {
+        String value = sArguments.getString(name);
+        if (value == null || value.trim().length() == 0) {
+            return defaultValues;
+        }
+        String[] parts = value.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.benchmark;
+
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.test.InstrumentationTestCase;
+import android.text.format.DateUtils;
+import android.util.Log;
+
+import com.example.android.sunshine.app.R;
+import com.example.android.sunshine.app.data.PackedForecastStore;
+import com.example.android.sunshine.app.data.WeatherContract;
+import com.example.android.sunshine.app.data.WeatherContract.LocationEntry;
+import com.example.android.sunshine.app.data.WeatherContract.WeatherEntry;
+import com.example.android.sunshine.app.data.WeatherDbHelper;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills WeatherProvider with synthetic locations and history, then measures how it scales:
+ * bulkInsert throughput, weather/&lt;location&gt;?date= query latency, the space the data takes,
+ * delete cost and how long a change notification takes to reach every observer.
+ *
+ * The scales run are every combination of the "locations" and "days" instrumentation
+ * arguments, see the module's build.gradle.  Results go to provider-sqlite-latest.json or
+ * provider-packed-latest.json, by the storage engine the app was built with, so building with
+ * use_packed_forecast_store set each way and running this twice compares the two engines
+ * through the provider, cursors and all.
+ */
+public class ProviderBenchmark extends InstrumentationTestCase {
+    private static final String LOG_TAG = ProviderBenchmark.class.getSimpleName();
+
+    private static final int[] DEFAULT_LOCATIONS = {1, 100, 1000, 10000};
+    private static final int[] DEFAULT_DAYS = {14, 365};
+    private static final int[] OBSERVER_COUNTS = {1, 10, 100};
+
+    // Queries are timed against a random sample of the locations
+    private static final int QUERY_SAMPLES = 200;
+    private static final long NOTIFICATION_TIMEOUT_SECONDS = 30;
+
+    private Context mContext;
+    private ContentResolver mResolver;
+    private final Random mRandom = new Random(42);
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mContext = getInstrumentation().getTargetContext();
+        mResolver = mContext.getContentResolver();
+        deleteAll();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        deleteAll();
+        super.tearDown();
+    }
+
+    private void deleteAll() {
+        mResolver.delete(WeatherEntry.CONTENT_URI, null, null);
+        mResolver.delete(LocationEntry.CONTENT_URI, null, null);
+    }
+
+    public void testProviderScaling() throws Exception {
+        String storage = mContext.getResources()
+                .getBoolean(R.bool.use_packed_forecast_store) ? "packed" : "sqlite";
+        BenchmarkReport report = new BenchmarkReport("provider-" + storage);
+        report.putInfo("storage", storage);
+
+        int[] locationCounts = BenchmarkRunner.getIntArrayArgument("locations", DEFAULT_LOCATIONS);
+        int[] dayCounts = BenchmarkRunner.getIntArrayArgument("days", DEFAULT_DAYS);
+        for (int locations : locationCounts) {
+            for (int days : dayCounts) {
+                runScenario(report, locations, days);
+                deleteAll();
+            }
+        }
+        report.write(mContext);
+    }
+
+    private void runScenario(BenchmarkReport report, int locationCount, int days)
+            throws Exception {
+        Log.i(LOG_TAG, "Running " + locationCount + " locations x " + days + " days");
+        JSONObject result = report.addResult(locationCount + "x" + days);
+        result.put("locations", locationCount);
+        result.put("days", days);
+
+        long today = WeatherContract.normalizeDate(System.currentTimeMillis());
+        long firstDay = today - (days - 1) * DateUtils.DAY_IN_MILLIS;
+
+        // Locations
+        String[] settings = new String[locationCount];
+        long[] locationIds = new long[locationCount];
+        long start = System.nanoTime();
+        for (int i = 0; i < locationCount; i++) {
+            settings[i] = "bench" + i;
+            locationIds[i] = ContentUris.parseId(
+                    mResolver.insert(LocationEntry.CONTENT_URI, createLocation(i)));
+        }
+        result.put("location_insert_ms", (System.nanoTime() - start) / 1000000);
+
+        // One bulkInsert per location, the way a sync writes a forecast
+        long[] insertNanos = new long[locationCount];
+        for (int i = 0; i < locationCount; i++) {
+            ContentValues[] forecast = createForecast(locationIds[i], firstDay, days);
+            start = System.nanoTime();
+            mResolver.bulkInsert(WeatherEntry.CONTENT_URI, forecast);
+            insertNanos[i] = System.nanoTime() - start;
+        }
+        long totalInsertNanos = 0;
+        for (long nanos : insertNanos) {
+            totalInsertNanos += nanos;
+        }
+        result.put("bulk_insert_rows_per_s",
+                (long) locationCount * days * 1000000000L / Math.max(1, totalInsertNanos));
+        BenchmarkReport.putPercentiles(result, "bulk_insert", insertNanos);
+
+        // Everything the provider keeps on disk: the database, which holds the locations either
+        // way, and the packed forecasts if there are any
+        long databaseBytes = getDatabaseBytes();
+        long packedBytes = getDirectoryBytes(
+                new File(mContext.getFilesDir(), PackedForecastStore.DIRECTORY_NAME));
+        result.put("database_bytes", databaseBytes);
+        result.put("packed_bytes", packedBytes);
+        result.put("storage_bytes", databaseBytes + packedBytes);
+
+        // The forecast list's query, reading every row like the adapter eventually does
+        int samples = Math.min(QUERY_SAMPLES, locationCount);
+        long[] queryNanos = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            Uri uri = WeatherEntry.buildWeatherLocationWithStartDate(
+                    settings[mRandom.nextInt(locationCount)], today);
+            start = System.nanoTime();
+            Cursor cursor = mResolver.query(uri, null, null, null,
+                    WeatherEntry.COLUMN_DATE + " ASC");
+            while (cursor.moveToNext()) {
+                cursor.getDouble(cursor.getColumnIndex(WeatherEntry.COLUMN_MAX_TEMP));
+            }
+            cursor.close();
+            queryNanos[i] = System.nanoTime() - start;
+        }
+        BenchmarkReport.putPercentiles(result, "location_query", queryNanos);
+
+        // Change notification fan-out, with observers on distinct locations like several
+        // widgets, the forecast list and the detail view would have
+        for (int observers : OBSERVER_COUNTS) {
+            result.put("notify_" + observers + "_observers_us",
+                    measureNotification(settings, locationIds[0], observers, today));
+        }
+
+        // Deleting the history older than today, as every sync does, then everything
+        start = System.nanoTime();
+        int deleted = mResolver.delete(WeatherEntry.CONTENT_URI,
+                WeatherEntry.COLUMN_DATE + " < ?", new String[]{Long.toString(today)});
+        result.put("delete_old_ms", (System.nanoTime() - start) / 1000000);
+        result.put("delete_old_rows", deleted);
+
+        start = System.nanoTime();
+        mResolver.delete(WeatherEntry.CONTENT_URI, null, null);
+        result.put("delete_all_ms", (System.nanoTime() - start) / 1000000);
+
+        Log.i(LOG_TAG, result.toString());
+    }
+
+    /**
+     * Registers observerCount observers, writes one day and times how long it takes until
+     * every observer has been told.
+     *
+     * @return microseconds from the start of the write until the last observer was called
+     */
+    private long measureNotification(String[] settings, long locationId, int observerCount,
+                                     long date) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(observerCount);
+        List<ContentObserver> observers = new ArrayList<ContentObserver>(observerCount);
+        for (int i = 0; i < observerCount; i++) {
+            // Null handler: onChange runs on a binder thread, so the test thread can wait
+            ContentObserver observer = new ContentObserver(null) {
+                @Override
+                public void onChange(boolean selfChange) {
+                    latch.countDown();
+                }
+            };
+            mResolver.registerContentObserver(
+                    WeatherEntry.buildWeatherLocation(settings[i % settings.length]),
+                    false, observer);
+            observers.add(observer);
+        }
+
+        long start = System.nanoTime();
+        mResolver.bulkInsert(WeatherEntry.CONTENT_URI, createForecast(locationId, date, 1));
+        boolean notified = latch.await(NOTIFICATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        long micros = (System.nanoTime() - start) / 1000;
+
+        for (ContentObserver observer : observers) {
+            mResolver.unregisterContentObserver(observer);
+        }
+        assertTrue("Error: Only " + (observerCount - latch.getCount()) + " of " + observerCount
+                + " observers were notified", notified);
+        return micros;
+    }
+
+    private long getDatabaseBytes() {
+        File database = mContext.getDatabasePath(WeatherDbHelper.DATABASE_NAME);
+        long bytes = 0;
+        for (String suffix : new String[]{"", "-journal", "-wal", "-shm"}) {
+            bytes += new File(database.getPath() + suffix).length();
+        }
+        return bytes;
+    }
+
+    private static long getDirectoryBytes(File directory) {
+        long bytes = 0;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                bytes += file.length();
+            }
+        }
+        return bytes;
+    }
+
+    private ContentValues createLocation(int index) {
+        ContentValues values = new ContentValues();
+        values.put(LocationEntry.COLUMN_LOCATION_SETTING, "bench" + index);
+        values.put(LocationEntry.COLUMN_CITY_NAME, "Bench City " + index);
+        values.put(LocationEntry.COLUMN_COORD_LAT, mRandom.nextDouble() * 180 - 90);
+        values.put(LocationEntry.COLUMN_COORD_LONG, mRandom.nextDouble() * 360 - 180);
+        return values;
+    }
+
+    private ContentValues[] createForecast(long locationId, long firstDay, int days) {
+        ContentValues[] forecast = new ContentValues[days];
+        for (int i = 0; i < days; i++) {
+            ContentValues values = new ContentValues();
+            values.put(WeatherEntry.COLUMN_LOC_KEY, locationId);
+            values.put(WeatherEntry.COLUMN_DATE, firstDay + i * DateUtils.DAY_IN_MILLIS);
+            values.put(WeatherEntry.COLUMN_WEATHER_ID, 800 + mRandom.nextInt(5));
+            values.put(WeatherEntry.COLUMN_SHORT_DESC, "Clouds");
+            values.put(WeatherEntry.COLUMN_MIN_TEMP, mRandom.nextInt(20));
+            values.put(WeatherEntry.COLUMN_MAX_TEMP, 20 + mRandom.nextInt(20));
+            values.put(WeatherEntry.COLUMN_HUMIDITY, mRandom.nextInt(100));
+            values.put(WeatherEntry.COLUMN_PRESSURE, 990 + mRandom.nextInt(40));
+            values.put(WeatherEntry.COLUMN_WIND_SPEED, mRandom.nextFloat() * 10);
+            values.put(WeatherEntry.COLUMN_DEGREES, mRandom.nextInt(360));
+            forecast[i] = values;
+        }
+        return forecast;
+    }
+}
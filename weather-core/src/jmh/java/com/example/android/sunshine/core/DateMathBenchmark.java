@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.TimeZone;
+
+/**
+ * Date normalization, done for every row the provider writes and for every query start date.
+ */
+@State(Scope.Benchmark)
+public class DateMathBenchmark {
+
+    private final TimeZone mTimeZone = TimeZone.getTimeZone("America/Los_Angeles");
+    private long mTime = 1419033600000L;
+
+    @Benchmark
+    public long normalizeDate() {
+        // Move on by a little over an hour each time so the day keeps changing
+        mTime += 3700 * 1000L;
+        return DateMath.normalizeDate(mTime, mTimeZone);
+    }
+
+    @Benchmark
+    public int getJulianDay() {
+        mTime += 3700 * 1000L;
+        return DateMath.getJulianDay(mTime, mTimeZone);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+import java.util.Random;
+
+/**
+ * Synthetic data shaped like what OpenWeatherMap returns.
+ */
+public class ForecastFixtures {
+
+    // Every condition code OpenWeatherMap documents
+    public static final int[] CONDITION_CODES = {
+            200, 201, 202, 210, 211, 212, 221, 230, 231, 232,
+            300, 301, 302, 310, 311, 312, 313, 314, 321,
+            500, 501, 502, 503, 504, 511, 520, 521, 522, 531,
+            600, 601, 602, 611, 612, 615, 616, 620, 621, 622,
+            701, 711, 721, 731, 741, 751, 761, 762, 771, 781,
+            800, 801, 802, 803, 804,
+            900, 901, 902, 903, 904, 905, 906,
+            951, 952, 953, 954, 955, 956, 957, 958, 959, 960, 961, 962
+    };
+
+    /**
+     * A daily forecast response with the given number of days.
+     */
+    public static String forecastJson(int days) {
+        Random random = new Random(days);
+        StringBuilder json = new StringBuilder();
+        json.append("{\"city\":{\"id\":5375480,\"name\":\"Mountain View\",")
+                .append("\"coord\":{\"lon\":-122.083847,\"lat\":37.386051},")
+                .append("\"country\":\"US\",\"population\":0},")
+                .append("\"cod\":\"200\",\"message\":0.0147,\"cnt\":").append(days)
+                .append(",\"list\":[");
+        long dt = 1419033600L;
+        for (int i = 0; i < days; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            int code = CONDITION_CODES[random.nextInt(CONDITION_CODES.length)];
+            json.append("{\"dt\":").append(dt + i * 86400L)
+                    .append(",\"temp\":{\"day\":15.2,\"min\":").append(5 + random.nextInt(10))
+                    .append(".5,\"max\":").append(15 + random.nextInt(10))
+                    .append(".25,\"night\":7.1,\"eve\":12.4,\"morn\":6.3},")
+                    .append("\"pressure\":1017.74,\"humidity\":").append(random.nextInt(100))
+                    .append(",\"weather\":[{\"id\":").append(code)
+                    .append(",\"main\":\"Clouds\",\"description\":\"broken clouds\",")
+                    .append("\"icon\":\"04d\"}],\"speed\":3.86,\"deg\":")
+                    .append(random.nextInt(360)).append(",\"clouds\":68}");
+        }
+        json.append("]}");
+        return json.toString();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.TimeZone;
+
+/**
+ * Parsing a sync's response, the 14 day forecast the app asks for and a longer one.
+ */
+@State(Scope.Benchmark)
+public class ForecastParserBenchmark {
+
+    @Param({"14", "365"})
+    public int days;
+
+    private String mJson;
+    private TimeZone mTimeZone;
+
+    @Setup
+    public void setUp() {
+        mJson = ForecastFixtures.forecastJson(days);
+        mTimeZone = TimeZone.getTimeZone("America/Los_Angeles");
+    }
+
+    @Benchmark
+    public Forecast parse() throws JSONException {
+        return ForecastParser.parse(mJson, 1419033600000L, mTimeZone);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Condition lookups, which every bind of the forecast list, widget row and notification does
+ * at least once.  Each invocation looks up every documented code, through the tables and
+ * through the branching they replaced.
+ */
+@State(Scope.Benchmark)
+public class WeatherConditionsBenchmark {
+
+    private final int[] mCodes = ForecastFixtures.CONDITION_CODES;
+
+    @Benchmark
+    @OperationsPerInvocation(73)
+    public void getGroup(Blackhole blackhole) {
+        for (int code : mCodes) {
+            blackhole.consume(WeatherConditions.getGroup(code));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(73)
+    public void getImageUrl(Blackhole blackhole) {
+        for (int code : mCodes) {
+            blackhole.consume(WeatherConditions.getImageUrl(code));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(73)
+    public void getDescription(Blackhole blackhole) {
+        for (int code : mCodes) {
+            blackhole.consume(WeatherConditions.getDescription(code));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(73)
+    public void getGroupByBranching(Blackhole blackhole) {
+        for (int code : mCodes) {
+            blackhole.consume(WeatherConditions.getGroupByBranching(code));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(73)
+    public void getImageUrlByBranching(Blackhole blackhole) {
+        for (int code : mCodes) {
+            blackhole.consume(WeatherConditions.getImageUrlByBranching(code));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.TimeZone;
+
+/**
+ * The formatting done for each row of the forecast list.
+ */
+@State(Scope.Benchmark)
+public class WeatherFormatBenchmark {
+
+    private static final long NOW = 1419033600000L;
+
+    private final TimeZone mTimeZone = TimeZone.getTimeZone("America/Los_Angeles");
+    private int mDay;
+
+    private long nextDate() {
+        mDay = (mDay + 1) % 14;
+        return NOW + mDay * DateMath.DAY_IN_MILLIS;
+    }
+
+    @Benchmark
+    public int getDayKind() {
+        return WeatherFormat.getDayKind(nextDate(), NOW, mTimeZone);
+    }
+
+    @Benchmark
+    public String formatDayName() {
+        return WeatherFormat.formatDayName(nextDate());
+    }
+
+    @Benchmark
+    public String formatMonthDay() {
+        return WeatherFormat.formatMonthDay(nextDate());
+    }
+
+    @Benchmark
+    public String getWindDirection() {
+        mDay = (mDay + 1) % 360;
+        return WeatherFormat.getWindDirection(mDay);
+    }
+
+    @Benchmark
+    public double convertTemperature() {
+        mDay = (mDay + 1) % 40;
+        return WeatherFormat.convertTemperature(mDay, false);
+    }
+}
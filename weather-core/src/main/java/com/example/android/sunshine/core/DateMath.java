@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Julian day arithmetic, matching what android.text.format.Time does, so dates computed here
+ * line up with the ones already in the database.
+ */
+public class DateMath {
+
+    public static final long DAY_IN_MILLIS = 24 * 60 * 60 * 1000L;
+
+    // The Julian day of January 1, 1970
+    public static final int EPOCH_JULIAN_DAY = 2440588;
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    /**
+     * Same as Time.getJulianDay.
+     *
+     * @param millis the time in milliseconds since the epoch
+     * @param gmtOffsetSeconds the offset from UTC of the time zone, in seconds
+     */
+    public static int getJulianDay(long millis, long gmtOffsetSeconds) {
+        long offsetMillis = gmtOffsetSeconds * 1000;
+        long julianDay = (millis + offsetMillis) / DAY_IN_MILLIS;
+        return (int) julianDay + EPOCH_JULIAN_DAY;
+    }
+
+    /**
+     * The Julian day millis falls on in timeZone.
+     */
+    public static int getJulianDay(long millis, TimeZone timeZone) {
+        return getJulianDay(millis, timeZone.getOffset(millis) / 1000);
+    }
+
+    /**
+     * Same as Time.setJulianDay: midnight at the start of julianDay in timeZone.
+     */
+    public static long getStartOfJulianDay(int julianDay, TimeZone timeZone) {
+        Calendar utc = Calendar.getInstance(UTC);
+        utc.setTimeInMillis((julianDay - EPOCH_JULIAN_DAY) * DAY_IN_MILLIS);
+
+        Calendar local = Calendar.getInstance(timeZone);
+        local.clear();
+        local.set(utc.get(Calendar.YEAR), utc.get(Calendar.MONTH),
+                utc.get(Calendar.DAY_OF_MONTH), 0, 0, 0);
+        return local.getTimeInMillis();
+    }
+
+    /**
+     * Moves a time to the start of its day in timeZone.  This is the form dates are stored in.
+     */
+    public static long normalizeDate(long millis, TimeZone timeZone) {
+        return getStartOfJulianDay(getJulianDay(millis, timeZone), timeZone);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A daily forecast for one city, as parsed by ForecastParser.
+ */
+public class Forecast {
+
+    /**
+     * One day of the forecast.  Temperatures are in Celsius and wind speeds in km/h.
+     */
+    public static class Day {
+        public final long date;
+        public final double pressure;
+        public final int humidity;
+        public final double windSpeed;
+        public final double windDirection;
+        public final double high;
+        public final double low;
+        public final String description;
+        public final int weatherId;
+
+        public Day(long date, double pressure, int humidity, double windSpeed,
+                   double windDirection, double high, double low, String description,
+                   int weatherId) {
+            this.date = date;
+            this.pressure = pressure;
+            this.humidity = humidity;
+            this.windSpeed = windSpeed;
+            this.windDirection = windDirection;
+            this.high = high;
+            this.low = low;
+            this.description = description;
+            this.weatherId = weatherId;
+        }
+    }
+
+    // The "cod" OpenWeatherMap sent, an HTTP status
+    public final int code;
+    public final String cityName;
+    public final double latitude;
+    public final double longitude;
+    // The Julian day of the first entry in days
+    public final int julianStartDay;
+    public final List<Day> days;
+
+    public Forecast(int code, String cityName, double latitude, double longitude,
+                    int julianStartDay, List<Day> days) {
+        this.code = code;
+        this.cityName = cityName;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.julianStartDay = julianStartDay;
+        this.days = Collections.unmodifiableList(days);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A list of cities with their coordinates, for checking and completing a location as it is
+ * typed, without asking the weather service.
+ *
+ * The list is read from tab separated lines of name, region, country code, latitude and
+ * longitude, biggest cities first.  Lines starting with # are skipped.  Names are matched
+ * ignoring case, accents and extra spaces, through an array of the matching keys sorted so a
+ * lookup or a prefix is a binary search.  Where several cities share a name, the one listed
+ * first wins unless the location names a region or country after a comma, as in
+ * "London, CA".
+ */
+public class Gazetteer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    public static class City {
+        public final String name;
+        // Empty where the list doesn't have one
+        public final String region;
+        public final String country;
+        public final float latitude;
+        public final float longitude;
+
+        public City(String name, String region, String country, float latitude,
+                    float longitude) {
+            this.name = name;
+            this.region = region;
+            this.country = country;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        /**
+         * The name with its country, the way it is offered as a completion.
+         */
+        public String getDisplayName() {
+            return name + ", " + country;
+        }
+
+        boolean isIn(String qualifier) {
+            return normalize(country).equals(qualifier) || normalize(region).equals(qualifier);
+        }
+
+        @Override
+        public String toString() {
+            return getDisplayName();
+        }
+    }
+
+    // In the order they were read, so a lower index is a bigger city
+    private final City[] mCities;
+    // The normalized names, sorted, and the index into mCities of each
+    private final String[] mKeys;
+    private final int[] mKeyCities;
+
+    private Gazetteer(final City[] cities) {
+        mCities = cities;
+        final String[] keys = new String[cities.length];
+        Integer[] order = new Integer[cities.length];
+        for (int i = 0; i < cities.length; i++) {
+            keys[i] = normalize(cities[i].name);
+            order[i] = i;
+        }
+        // Stable, so cities with the same name stay biggest first
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer lhs, Integer rhs) {
+                return keys[lhs].compareTo(keys[rhs]);
+            }
+        });
+        mKeys = new String[cities.length];
+        mKeyCities = new int[cities.length];
+        for (int i = 0; i < order.length; i++) {
+            mKeys[i] = keys[order[i]];
+            mKeyCities[i] = order[i];
+        }
+    }
+
+    public static Gazetteer read(Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        List<City> cities = new ArrayList<City>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.length() == 0 || line.charAt(0) == '#') {
+                continue;
+            }
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 5) {
+                throw new IOException("Expected 5 fields: " + line);
+            }
+            try {
+                cities.add(new City(fields[0], fields[1], fields[2],
+                        Float.parseFloat(fields[3]), Float.parseFloat(fields[4])));
+            } catch (NumberFormatException e) {
+                throw new IOException("Bad coordinates: " + line);
+            }
+        }
+        return new Gazetteer(cities.toArray(new City[cities.size()]));
+    }
+
+    public int size() {
+        return mCities.length;
+    }
+
+    /**
+     * The city a location names, or null if it isn't one this list knows.  The location is a
+     * city name, optionally followed by a comma and its region or country.
+     */
+    public City find(String location) {
+        String name = location;
+        String qualifier = null;
+        int comma = location.indexOf(',');
+        if (comma >= 0) {
+            name = location.substring(0, comma);
+            qualifier = normalize(location.substring(comma + 1));
+            if (qualifier.length() == 0) {
+                qualifier = null;
+            }
+        }
+        String key = normalize(name);
+        for (int i = lowerBound(key); i < mKeys.length && mKeys[i].equals(key); i++) {
+            City city = mCities[mKeyCities[i]];
+            if (qualifier == null || city.isIn(qualifier)) {
+                return city;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Up to max cities whose names start with prefix, biggest first.  Anything from a comma on
+     * is ignored.
+     */
+    public List<City> complete(String prefix, int max) {
+        int comma = prefix.indexOf(',');
+        String key = normalize(comma >= 0 ? prefix.substring(0, comma) : prefix);
+        if (key.length() == 0) {
+            return Collections.emptyList();
+        }
+        List<Integer> matches = new ArrayList<Integer>();
+        for (int i = lowerBound(key); i < mKeys.length && mKeys[i].startsWith(key); i++) {
+            matches.add(mKeyCities[i]);
+        }
+        Collections.sort(matches);
+        List<City> cities = new ArrayList<City>(Math.min(max, matches.size()));
+        for (int i = 0; i < matches.size() && i < max; i++) {
+            cities.add(mCities[matches.get(i)]);
+        }
+        return cities;
+    }
+
+    // The first position in mKeys not less than key
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = mKeys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mKeys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Lower case, without accents and with single spaces, so "  S\u00e3o  Paulo" matches
+     * "sao paulo".
+     */
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String plain = MARKS.matcher(decomposed).replaceAll("");
+        return SPACES.matcher(plain.trim()).replaceAll(" ").toLowerCase(Locale.US);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+/**
+ * Maps OpenWeatherMap condition codes onto the handful of groups Sunshine has icons and art
+ * for, and onto the conditions it has descriptions for.  Each app turns a group or a
+ * description into its own resources, indexing an array by it.
+ *
+ * Lookups go through tables indexed by the code, which are generated once from the rules in
+ * getGroupByBranching and DESCRIPTION_CODES.
+ */
+public class WeatherConditions {
+
+    public static final int GROUP_NONE = -1;
+    public static final int GROUP_STORM = 0;
+    public static final int GROUP_LIGHT_RAIN = 1;
+    public static final int GROUP_RAIN = 2;
+    public static final int GROUP_SNOW = 3;
+    public static final int GROUP_FOG = 4;
+    public static final int GROUP_CLEAR = 5;
+    public static final int GROUP_LIGHT_CLOUDS = 6;
+    public static final int GROUP_CLOUDS = 7;
+    public static final int GROUP_COUNT = 8;
+
+    public static final int DESCRIPTION_NONE = -1;
+
+    // The codes with a description of their own, in the order apps list their descriptions.
+    // The first two stand for every code from 200 to 232 and from 300 to 321.  Private, as the
+    // description lookup table is generated from it once.
+    private static final int[] DESCRIPTION_CODES = {
+            200, 300,
+            500, 501, 502, 503, 504, 511, 520, 531,
+            600, 601, 602, 611, 612, 615, 616, 620, 621, 622,
+            701, 711, 721, 731, 741, 751, 761, 762, 771, 781,
+            800, 801, 802, 803, 804,
+            900, 901, 902, 903, 904, 905, 906,
+            951, 952, 953, 954, 955, 956, 957, 958, 959, 960, 961, 962
+    };
+
+    // The range of codes OpenWeatherMap documents, and the tables cover
+    public static final int MIN_CODE = 200;
+    public static final int MAX_CODE = 962;
+
+    // The name of each group in art pack URLs, by group
+    private static final String[] SLUGS = {
+            "storm", "light_rain", "rain", "snow", "fog", "clear", "light_clouds", "clouds"
+    };
+
+    // Wikimedia images, used by Muzei, by group and then IMAGE_TORNADO
+    private static final String[] IMAGE_URLS = {
+            "http://upload.wikimedia.org/wikipedia/commons/2/28/Thunderstorm_in_Annemasse,_France.jpg",
+            "http://upload.wikimedia.org/wikipedia/commons/a/a0/Rain_on_leaf_504605006.jpg",
+            "http://upload.wikimedia.org/wikipedia/commons/6/6c/Rain-on-Thassos.jpg",
+            "http://upload.wikimedia.org/wikipedia/commons/b/b8/Fresh_snow.JPG",
+            "http://upload.wikimedia.org/wikipedia/commons/e/e6/Westminster_fog_-_London_-_UK.jpg",
+            "http://upload.wikimedia.org/wikipedia/commons/7/7e/A_few_trees_and_the_sun_(6009964513).jpg",
+            "http://upload.wikimedia.org/wikipedia/commons/e/e7/Cloudy_Blue_Sky_(5031259890).jpg",
+            "http://upload.wikimedia.org/wikipedia/commons/5/54/Cloudy_hills_in_Elis,_Greece_2.jpg",
+            // Muzei always used this image for 781, even though its icon is the storm icon
+            "http://upload.wikimedia.org/wikipedia/commons/d/dc/Raised_dust_ahead_of_a_severe_thunderstorm_1.jpg"
+    };
+
+    // Muzei's image for 781, by its index in the image table
+    private static final int IMAGE_TORNADO = GROUP_COUNT;
+
+    // By code - MIN_CODE.  Bytes, as every value fits
+    private static final byte[] GROUPS = new byte[MAX_CODE - MIN_CODE + 1];
+    private static final byte[] DESCRIPTIONS = new byte[MAX_CODE - MIN_CODE + 1];
+    private static final byte[] IMAGES = new byte[MAX_CODE - MIN_CODE + 1];
+
+    static {
+        for (int code = MIN_CODE; code <= MAX_CODE; code++) {
+            int group = getGroupByBranching(code);
+            GROUPS[code - MIN_CODE] = (byte) group;
+            IMAGES[code - MIN_CODE] = (byte) (code == 781 ? IMAGE_TORNADO : group);
+
+            int description = DESCRIPTION_NONE;
+            if (code <= 232) {
+                description = 0;
+            } else if (code >= 300 && code <= 321) {
+                description = 1;
+            } else {
+                for (int i = 2; i < DESCRIPTION_CODES.length; i++) {
+                    if (DESCRIPTION_CODES[i] == code) {
+                        description = i;
+                        break;
+                    }
+                }
+            }
+            DESCRIPTIONS[code - MIN_CODE] = (byte) description;
+        }
+    }
+
+    /**
+     * Returns the group of a condition code, or GROUP_NONE if Sunshine has no art for it.
+     *
+     * @param weatherId from OpenWeatherMap API response
+     */
+    public static int getGroup(int weatherId) {
+        if (weatherId < MIN_CODE || weatherId > MAX_CODE) {
+            return GROUP_NONE;
+        }
+        return GROUPS[weatherId - MIN_CODE];
+    }
+
+    /**
+     * Returns which of DESCRIPTION_CODES describes a condition code, or DESCRIPTION_NONE if
+     * there is no description for it.
+     *
+     * @param weatherId from OpenWeatherMap API response
+     */
+    public static int getDescription(int weatherId) {
+        if (weatherId < MIN_CODE || weatherId > MAX_CODE) {
+            return DESCRIPTION_NONE;
+        }
+        return DESCRIPTIONS[weatherId - MIN_CODE];
+    }
+
+    /**
+     * The condition code a description stands for, the first of its range for the first two.
+     *
+     * @param description a description returned by getDescription, other than DESCRIPTION_NONE
+     */
+    public static int getDescriptionCode(int description) {
+        return DESCRIPTION_CODES[description];
+    }
+
+    /**
+     * The rules the group table is generated from, and what getGroup was before there was a
+     * table.
+     */
+    static int getGroupByBranching(int weatherId) {
+        // Based on weather code data found at:
+        // http://bugs.openweathermap.org/projects/api/wiki/Weather_Condition_Codes
+        if (weatherId >= 200 && weatherId <= 232) {
+            return GROUP_STORM;
+        } else if (weatherId >= 300 && weatherId <= 321) {
+            return GROUP_LIGHT_RAIN;
+        } else if (weatherId >= 500 && weatherId <= 504) {
+            return GROUP_RAIN;
+        } else if (weatherId == 511) {
+            return GROUP_SNOW;
+        } else if (weatherId >= 520 && weatherId <= 531) {
+            return GROUP_RAIN;
+        } else if (weatherId >= 600 && weatherId <= 622) {
+            return GROUP_SNOW;
+        } else if (weatherId >= 701 && weatherId <= 761) {
+            return GROUP_FOG;
+        } else if (weatherId == 781) {
+            return GROUP_STORM;
+        } else if (weatherId == 800) {
+            return GROUP_CLEAR;
+        } else if (weatherId == 801) {
+            return GROUP_LIGHT_CLOUDS;
+        } else if (weatherId >= 802 && weatherId <= 804) {
+            return GROUP_CLOUDS;
+        }
+        return GROUP_NONE;
+    }
+
+    /**
+     * The name art packs use for a group, e.g. "light_rain".
+     */
+    public static String getSlug(int group) {
+        return group == GROUP_NONE ? null : SLUGS[group];
+    }
+
+    /**
+     * A photo for the condition, or null if no mapping is found.
+     *
+     * @param weatherId from OpenWeatherMap API response
+     */
+    public static String getImageUrl(int weatherId) {
+        if (weatherId < MIN_CODE || weatherId > MAX_CODE) {
+            return null;
+        }
+        int image = IMAGES[weatherId - MIN_CODE];
+        return image == GROUP_NONE ? null : IMAGE_URLS[image];
+    }
+
+    /**
+     * What getImageUrl was before there was a table.
+     */
+    static String getImageUrlByBranching(int weatherId) {
+        if (weatherId == 781) {
+            return IMAGE_URLS[IMAGE_TORNADO];
+        }
+        int group = getGroupByBranching(weatherId);
+        return group == GROUP_NONE ? null : IMAGE_URLS[group];
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+
+/**
+ * Unit conversion and the locale independent parts of formatting a forecast.  The localized
+ * strings ("Today", the temperature format and so on) stay in each app's resources.
+ */
+public class WeatherFormat {
+
+    // How a day is described in the forecast list, see getDayKind
+    public static final int DAY_TODAY = 0;
+    public static final int DAY_TOMORROW = 1;
+    public static final int DAY_THIS_WEEK = 2;
+    public static final int DAY_LATER = 3;
+
+    private static final float MILES_PER_KILOMETER = .621371192237334f;
+
+    /**
+     * Data is stored in Celsius.  Converts to Fahrenheit if the user prefers imperial units.
+     */
+    public static double convertTemperature(double celsius, boolean isMetric) {
+        return isMetric ? celsius : (celsius * 1.8) + 32;
+    }
+
+    /**
+     * Data is stored in km/h.  Converts to mph if the user prefers imperial units.
+     */
+    public static float convertWindSpeed(float kilometersPerHour, boolean isMetric) {
+        return isMetric ? kilometersPerHour : MILES_PER_KILOMETER * kilometersPerHour;
+    }
+
+    /**
+     * From wind direction in degrees, determine compass direction as a string (e.g NW).
+     */
+    public static String getWindDirection(float degrees) {
+        if (degrees >= 337.5 || degrees < 22.5) {
+            return "N";
+        } else if (degrees >= 22.5 && degrees < 67.5) {
+            return "NE";
+        } else if (degrees >= 67.5 && degrees < 112.5) {
+            return "E";
+        } else if (degrees >= 112.5 && degrees < 157.5) {
+            return "SE";
+        } else if (degrees >= 157.5 && degrees < 202.5) {
+            return "S";
+        } else if (degrees >= 202.5 && degrees < 247.5) {
+            return "SW";
+        } else if (degrees >= 247.5 && degrees < 292.5) {
+            return "W";
+        } else if (degrees >= 292.5 && degrees < 337.5) {
+            return "NW";
+        }
+        return "Unknown";
+    }
+
+    /**
+     * Decides how the forecast list describes a day: today, tomorrow, a day name for the rest
+     * of the week, or a short date after that.
+     */
+    public static int getDayKind(long dateInMillis, long nowMillis, TimeZone timeZone) {
+        // Both days use the offset in effect now, like the list always has
+        long gmtOffsetSeconds = timeZone.getOffset(nowMillis) / 1000;
+        int julianDay = DateMath.getJulianDay(dateInMillis, gmtOffsetSeconds);
+        int currentJulianDay = DateMath.getJulianDay(nowMillis, gmtOffsetSeconds);
+        if (julianDay == currentJulianDay) {
+            return DAY_TODAY;
+        } else if (julianDay == currentJulianDay + 1) {
+            return DAY_TOMORROW;
+        } else if (julianDay < currentJulianDay + 7) {
+            return DAY_THIS_WEEK;
+        }
+        return DAY_LATER;
+    }
+
+    /**
+     * The day of the week, e.g "Wednesday".
+     */
+    public static String formatDayName(long dateInMillis) {
+        return new SimpleDateFormat("EEEE").format(dateInMillis);
+    }
+
+    /**
+     * The form "Month day", e.g "June 24".
+     */
+    public static String formatMonthDay(long dateInMillis) {
+        return new SimpleDateFormat("MMMM dd").format(dateInMillis);
+    }
+
+    /**
+     * The form "Mon Jun 3".
+     */
+    public static String formatShortDate(long dateInMillis) {
+        return new SimpleDateFormat("EEE MMM dd").format(dateInMillis);
+    }
+}
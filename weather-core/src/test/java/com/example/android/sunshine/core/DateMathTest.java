@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+public class DateMathTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final TimeZone LOS_ANGELES = TimeZone.getTimeZone("America/Los_Angeles");
+    private static final TimeZone TOKYO = TimeZone.getTimeZone("Asia/Tokyo");
+
+    // March 8 and 9, 2015.  Los Angeles moved its clocks forward at 2am on the 8th.
+    private static final int MARCH_8 = 2457090;
+    private static final int MARCH_9 = 2457091;
+
+    // November 1 and 2, 2015.  Los Angeles moved its clocks back at 2am on the 1st.
+    private static final int NOVEMBER_1 = 2457328;
+    private static final int NOVEMBER_2 = 2457329;
+
+    @Test
+    public void dayChangesAtUtcMidnight() {
+        assertEquals(DateMath.EPOCH_JULIAN_DAY, DateMath.getJulianDay(0, UTC));
+        assertEquals(DateMath.EPOCH_JULIAN_DAY,
+                DateMath.getJulianDay(DateMath.DAY_IN_MILLIS - 1, UTC));
+        assertEquals(DateMath.EPOCH_JULIAN_DAY + 1,
+                DateMath.getJulianDay(DateMath.DAY_IN_MILLIS, UTC));
+        assertEquals(0, DateMath.getStartOfJulianDay(DateMath.EPOCH_JULIAN_DAY, UTC));
+    }
+
+    @Test
+    public void springForwardDayIs23Hours() {
+        // Midnight PST, 08:00 UTC, and midnight PDT, 07:00 UTC the next day
+        assertEquals(1425801600000L, DateMath.getStartOfJulianDay(MARCH_8, LOS_ANGELES));
+        assertEquals(1425884400000L, DateMath.getStartOfJulianDay(MARCH_9, LOS_ANGELES));
+
+        assertEquals(MARCH_8, DateMath.getJulianDay(1425801600000L, LOS_ANGELES));
+        assertEquals(MARCH_8, DateMath.getJulianDay(1425884400000L - 1, LOS_ANGELES));
+        assertEquals(MARCH_9, DateMath.getJulianDay(1425884400000L, LOS_ANGELES));
+    }
+
+    @Test
+    public void fallBackDayIs25Hours() {
+        // Midnight PDT, 07:00 UTC, and midnight PST, 08:00 UTC the next day
+        assertEquals(1446361200000L, DateMath.getStartOfJulianDay(NOVEMBER_1, LOS_ANGELES));
+        assertEquals(1446451200000L, DateMath.getStartOfJulianDay(NOVEMBER_2, LOS_ANGELES));
+
+        assertEquals(NOVEMBER_1, DateMath.getJulianDay(1446361200000L, LOS_ANGELES));
+        assertEquals(NOVEMBER_1, DateMath.getJulianDay(1446451200000L - 1, LOS_ANGELES));
+        assertEquals(NOVEMBER_2, DateMath.getJulianDay(1446451200000L, LOS_ANGELES));
+    }
+
+    @Test
+    public void dayChangesAtLocalMidnightAheadOfUtc() {
+        // Midnight in Tokyo is 15:00 UTC the day before
+        assertEquals(1425740400000L, DateMath.getStartOfJulianDay(MARCH_8, TOKYO));
+        assertEquals(MARCH_8 - 1, DateMath.getJulianDay(1425740400000L - 1, TOKYO));
+        assertEquals(MARCH_8, DateMath.getJulianDay(1425740400000L, TOKYO));
+        assertEquals(MARCH_8, DateMath.getJulianDay(1425740400000L, 9 * 60 * 60));
+    }
+
+    @Test
+    public void normalizesToTheStartOfTheLocalDay() {
+        // 20:00 UTC on March 8 is 13:00 on the 8th in Los Angeles, 05:00 on the 9th in Tokyo
+        long millis = 1425844800000L;
+        assertEquals(1425801600000L, DateMath.normalizeDate(millis, LOS_ANGELES));
+        assertEquals(1425826800000L, DateMath.normalizeDate(millis, TOKYO));
+        assertEquals(1425772800000L, DateMath.normalizeDate(millis, UTC));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+public class ForecastParserTest {
+
+    private static final TimeZone TIME_ZONE = TimeZone.getTimeZone("America/Los_Angeles");
+
+    // December 20th, 2014, 3pm in Mountain View
+    private static final long NOW = 1419116400000L;
+
+    private static final String FORECAST_JSON = "{\"city\":{\"name\":\"Mountain View\","
+            + "\"coord\":{\"lon\":-122.08,\"lat\":37.39}},\"cod\":\"200\",\"list\":["
+            + "{\"temp\":{\"min\":7.5,\"max\":15.25},\"pressure\":1017.74,\"humidity\":81,"
+            + "\"weather\":[{\"id\":803,\"main\":\"Clouds\"}],\"speed\":3.86,\"deg\":120},"
+            + "{\"temp\":{\"min\":6,\"max\":12},\"pressure\":1020.5,\"humidity\":60,"
+            + "\"weather\":[{\"id\":500,\"main\":\"Rain\"}],\"speed\":1.5,\"deg\":300}]}";
+
+    @Test
+    public void parsesCityAndDays() throws JSONException {
+        Forecast forecast = ForecastParser.parse(FORECAST_JSON, NOW, TIME_ZONE);
+
+        assertEquals(HttpURLConnection.HTTP_OK, forecast.code);
+        assertEquals("Mountain View", forecast.cityName);
+        assertEquals(37.39, forecast.latitude, 0);
+        assertEquals(-122.08, forecast.longitude, 0);
+        assertEquals(2, forecast.days.size());
+
+        Forecast.Day day = forecast.days.get(1);
+        assertEquals(500, day.weatherId);
+        assertEquals("Rain", day.description);
+        assertEquals(12, day.high, 0);
+        assertEquals(6, day.low, 0);
+        assertEquals(60, day.humidity);
+        assertEquals(300, day.windDirection, 0);
+    }
+
+    @Test
+    public void datesAreConsecutiveLocalMidnights() throws JSONException {
+        Forecast forecast = ForecastParser.parse(FORECAST_JSON, NOW, TIME_ZONE);
+
+        // Midnight on December 20th and 21st, Pacific time
+        assertEquals(1419062400000L, forecast.days.get(0).date);
+        assertEquals(1419148800000L, forecast.days.get(1).date);
+        assertEquals(forecast.days.get(0).date, DateMath.normalizeDate(NOW, TIME_ZONE));
+    }
+
+    @Test
+    public void reportsErrors() throws JSONException {
+        Forecast forecast = ForecastParser.parse(
+                "{\"cod\":\"404\",\"message\":\"Error: Not found city\"}", NOW, TIME_ZONE);
+
+        assertEquals(HttpURLConnection.HTTP_NOT_FOUND, forecast.code);
+        assertEquals(0, forecast.days.size());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GazetteerTest {
+
+    private static final String CITIES = "# name\tregion\tcountry\tlatitude\tlongitude\n"
+            + "London\tEngland\tGB\t51.51\t-0.13\n"
+            + "S\u00e3o Paulo\tS\u00e3o Paulo\tBR\t-23.55\t-46.63\n"
+            + "Los Angeles\tCA\tUS\t34.05\t-118.24\n"
+            + "Lagos\tLagos\tNG\t6.45\t3.40\n"
+            + "London\tON\tCA\t42.98\t-81.25\n"
+            + "Mountain View\tCA\tUS\t37.39\t-122.08\n";
+
+    private static Gazetteer read() throws IOException {
+        return Gazetteer.read(new StringReader(CITIES));
+    }
+
+    @Test
+    public void findsNamesIgnoringCaseAccentsAndSpaces() throws IOException {
+        Gazetteer gazetteer = read();
+        assertEquals(6, gazetteer.size());
+        assertEquals("Mountain View", gazetteer.find("mountain view").name);
+        assertEquals("S\u00e3o Paulo", gazetteer.find("  Sao   PAULO ").name);
+        assertNull(gazetteer.find("94043"));
+        assertNull(gazetteer.find("Lond"));
+    }
+
+    @Test
+    public void qualifierPicksBetweenCitiesWithTheSameName() throws IOException {
+        Gazetteer gazetteer = read();
+        // The bigger one, listed first, without a qualifier
+        assertEquals("GB", gazetteer.find("London").country);
+        assertEquals("GB", gazetteer.find("London,").country);
+        assertEquals("GB", gazetteer.find("London, gb").country);
+        assertEquals("CA", gazetteer.find("London, CA").country);
+        assertEquals("CA", gazetteer.find("London, ON").country);
+        assertEquals(37.39f, gazetteer.find("Mountain View, CA").latitude, 0);
+        assertNull(gazetteer.find("London, FR"));
+    }
+
+    @Test
+    public void completesPrefixesBiggestFirst() throws IOException {
+        Gazetteer gazetteer = read();
+        List<Gazetteer.City> cities = gazetteer.complete("l", 10);
+        assertEquals(4, cities.size());
+        assertEquals("London, GB", cities.get(0).getDisplayName());
+        assertEquals("Los Angeles, US", cities.get(1).getDisplayName());
+        assertEquals("Lagos, NG", cities.get(2).getDisplayName());
+        assertEquals("London, CA", cities.get(3).getDisplayName());
+
+        assertEquals(2, gazetteer.complete("LO", 2).size());
+        assertEquals(2, gazetteer.complete("london, on", 10).size());
+        assertTrue(gazetteer.complete("", 10).isEmpty());
+        assertTrue(gazetteer.complete("x", 10).isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class WeatherConditionsTest {
+
+    @Test
+    public void groupsMatchTheIcons() {
+        assertEquals(WeatherConditions.GROUP_STORM, WeatherConditions.getGroup(211));
+        assertEquals(WeatherConditions.GROUP_LIGHT_RAIN, WeatherConditions.getGroup(301));
+        assertEquals(WeatherConditions.GROUP_RAIN, WeatherConditions.getGroup(502));
+        assertEquals(WeatherConditions.GROUP_SNOW, WeatherConditions.getGroup(511));
+        assertEquals(WeatherConditions.GROUP_RAIN, WeatherConditions.getGroup(521));
+        assertEquals(WeatherConditions.GROUP_SNOW, WeatherConditions.getGroup(600));
+        assertEquals(WeatherConditions.GROUP_CLEAR, WeatherConditions.getGroup(800));
+        assertEquals(WeatherConditions.GROUP_LIGHT_CLOUDS, WeatherConditions.getGroup(801));
+        assertEquals(WeatherConditions.GROUP_CLOUDS, WeatherConditions.getGroup(804));
+    }
+
+    @Test
+    public void keepsTheHistoricalQuirks() {
+        // 761 (dust) has always shown fog, and 781 (tornado) a storm
+        assertEquals(WeatherConditions.GROUP_FOG, WeatherConditions.getGroup(761));
+        assertEquals(WeatherConditions.GROUP_STORM, WeatherConditions.getGroup(781));
+
+        // There is no art for 9xx, or for the gaps between documented codes
+        assertEquals(WeatherConditions.GROUP_NONE, WeatherConditions.getGroup(900));
+        assertEquals(WeatherConditions.GROUP_NONE, WeatherConditions.getGroup(962));
+        assertEquals(WeatherConditions.GROUP_NONE, WeatherConditions.getGroup(400));
+        assertNull(WeatherConditions.getImageUrl(951));
+    }
+
+    @Test
+    public void slugsAndImages() {
+        assertEquals("light_rain",
+                WeatherConditions.getSlug(WeatherConditions.getGroup(310)));
+        assertNull(WeatherConditions.getSlug(WeatherConditions.GROUP_NONE));
+        assertEquals("http://upload.wikimedia.org/wikipedia/commons/d/dc/"
+                        + "Raised_dust_ahead_of_a_severe_thunderstorm_1.jpg",
+                WeatherConditions.getImageUrl(781));
+    }
+
+    @Test
+    public void tablesMatchTheBranching() {
+        for (int code = 0; code < 1100; code++) {
+            assertEquals(WeatherConditions.getGroupByBranching(code),
+                    WeatherConditions.getGroup(code));
+            assertEquals(WeatherConditions.getImageUrlByBranching(code),
+                    WeatherConditions.getImageUrl(code));
+        }
+    }
+
+    @Test
+    public void descriptions() {
+        assertEquals(0, WeatherConditions.getDescription(231));
+        assertEquals(1, WeatherConditions.getDescription(313));
+        assertEquals(800,
+                WeatherConditions.getDescriptionCode(WeatherConditions.getDescription(800)));
+        assertEquals(962,
+                WeatherConditions.getDescriptionCode(WeatherConditions.getDescription(962)));
+
+        // 521 and 522 have never had descriptions of their own
+        assertEquals(WeatherConditions.DESCRIPTION_NONE, WeatherConditions.getDescription(521));
+        assertEquals(WeatherConditions.DESCRIPTION_NONE, WeatherConditions.getDescription(250));
+        assertEquals(WeatherConditions.DESCRIPTION_NONE, WeatherConditions.getDescription(199));
+        assertEquals(WeatherConditions.DESCRIPTION_NONE, WeatherConditions.getDescription(963));
+    }
+}